@@ -0,0 +1,36 @@
+package com.example.contentgenerator.config;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.contentgenerator.service.GeminiApiBatchClient;
+import com.example.contentgenerator.service.GeminiBatchClient;
+import com.example.contentgenerator.service.LocalBatchClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Selects the {@link GeminiBatchClient} from {@code gemini.batch.client} when the bean is created.
+ * A bean condition would be evaluated at build time in the AOT-processed image, fixing the choice there.
+ */
+@Configuration
+public class BatchClientConfig {
+
+    @Bean
+    public GeminiBatchClient geminiBatchClient(@Value("${gemini.batch.client:api}") String client,
+                                               @Value("${gemini.api.key}") String apiKey,
+                                               @Value("${gemini.batch.url:https://generativelanguage.googleapis.com/v1beta}") String baseUrl,
+                                               @Value("${gemini.batch.local.completion-delay:PT0S}") Duration completionDelay,
+                                               ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+        return switch (client.trim().toLowerCase(Locale.ROOT)) {
+            case "api" -> new GeminiApiBatchClient(apiKey, baseUrl, objectMapper, observationRegistry);
+            case "local" -> new LocalBatchClient(objectMapper, completionDelay);
+            default -> throw new IllegalArgumentException("Unknown gemini.batch.client '" + client + "'; expected api or local");
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.contentgenerator.config;
+
+import com.example.contentgenerator.util.LogRedactor;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Logback's pattern layout with the formatted line passed through {@link LogRedactor}, so the
+ * text log format masks tokens the same way {@link JsonLogLayout} does.
+ */
+public class RedactingPatternLayout extends PatternLayout {
+
+    @Override
+    public String doLayout(ILoggingEvent event) {
+        return LogRedactor.redact(super.doLayout(event));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.contentgenerator.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Samples high-volume log events per logger before they are created.
+ * Configured with {@code rates}, a comma-separated list of {@code loggerPrefix=rate} entries; an event
+ * from a matching logger (longest prefix wins) at or below {@code maxLevel} is kept once every
+ * {@code 1/rate} events and dropped otherwise. Warnings and errors are never sampled by default.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private static final Rule NO_RULE = new Rule("", 1);
+
+    private final List<Rule> rules = new ArrayList<>();
+    // Rule per logger name, resolved once; NO_RULE marks loggers that are not sampled
+    private final Map<String, Rule> resolved = new ConcurrentHashMap<>();
+    private Level maxLevel = Level.INFO;
+
+    public void setRates(String rates) {
+        rules.clear();
+        resolved.clear();
+        if (rates == null || rates.isBlank()) {
+            return;
+        }
+        for (String entry : rates.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                addError("Invalid sampling rate entry: '" + entry.trim() + "'");
+                continue;
+            }
+            double rate = Double.parseDouble(parts[1].trim());
+            long every = rate <= 0 ? Long.MAX_VALUE : Math.max(1, Math.round(1 / rate));
+            rules.add(new Rule(parts[0].trim(), every));
+        }
+    }
+
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() checks arrive without a format and must not use up a sample
+        if (format == null || rules.isEmpty() || level.toInt() > maxLevel.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        Rule rule = resolved.computeIfAbsent(logger.getName(), this::match);
+        if (rule == NO_RULE) {
+            return FilterReply.NEUTRAL;
+        }
+        return rule.counter.getAndIncrement() % rule.every == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Rule match(String loggerName) {
+        Rule best = NO_RULE;
+        for (Rule rule : rules) {
+            boolean matches = loggerName.equals(rule.prefix) || loggerName.startsWith(rule.prefix + ".");
+            if (matches && rule.prefix.length() >= best.prefix.length()) {
+                best = rule;
+            }
+        }
+        return best;
+    }
+
+    private static final class Rule {
+        private final String prefix;
+        private final long every;
+        private final AtomicLong counter = new AtomicLong();
+
+        Rule(String prefix, long every) {
+            this.prefix = prefix;
+            this.every = every;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.contentgenerator.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Span exporters for local use. Spring Boot hands every {@code SpanExporter} bean to the
+ * OpenTelemetry tracer, so a backend exporter (OTLP, Zipkin, ...) can be plugged in the same way
+ * by adding it as a bean or adding its Boot-supported dependency.
+ * <p>
+ * The exporter is chosen from {@code tracing.exporter} when the bean is created rather than with
+ * a bean condition, because conditions are evaluated at build time in the AOT-processed image.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * The local exporter selected by {@code tracing.exporter}: a {@link FileSpanExporter}, an
+     * {@link InMemorySpanExporter} (look it up as a {@code SpanExporter} and cast), or a no-op for {@code none}.
+     */
+    @Bean
+    public SpanExporter localSpanExporter(@Value("${tracing.exporter:none}") String exporter,
+                                          @Value("${tracing.file.path:traces.ndjson}") String path,
+                                          @Value("${tracing.memory.capacity:10000}") int capacity,
+                                          ObjectMapper objectMapper) throws IOException {
+        return switch (exporter.trim().toLowerCase(Locale.ROOT)) {
+            case "file" -> new FileSpanExporter(Path.of(path), objectMapper);
+            case "memory" -> new InMemorySpanExporter(capacity);
+            case "none", "" -> SpanExporter.composite(List.of());
+            default -> throw new IllegalArgumentException("Unknown tracing.exporter '" + exporter + "'; expected none, file or memory");
+        };
+    }
+}
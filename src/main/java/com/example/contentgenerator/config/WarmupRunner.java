@@ -0,0 +1,130 @@
+package com.example.contentgenerator.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.service.GeminiAiService;
+import com.example.contentgenerator.util.LinkedInUtil;
+import com.example.contentgenerator.util.TolerantJsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Warms up the application before it reports ready.
+ * Spring Boot publishes the readiness state ACCEPTING_TRAFFIC only after all application runners
+ * have completed, so while this runs the readiness probe stays OUT_OF_SERVICE. It pre-opens pooled
+ * connections to Gemini and LinkedIn and exercises prompt building, response parsing and payload
+ * serialization on synthetic data so TLS handshakes, Jackson serializer setup and JIT compilation
+ * are not paid by the first real requests. The whole phase is bounded by a timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final String SAMPLE_RESPONSE = "{\"headline\":\"Launch day\",\"content\":\"We are live!\\nTry it today.\","
+            + "\"tagline\":\"Built for you\",\"hashtags\":[\"#launch\",\"#tech\"],\"mentions\":[],\"aiScore\":87,"
+            + "\"predictedEngagement\":{\"likes\":120,\"comments\":14,\"shares\":9}}";
+
+    private final GeminiAiService geminiAiService;
+    private final LinkedInUtil linkedInUtil;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+    private final int iterations;
+
+    public WarmupRunner(GeminiAiService geminiAiService, LinkedInUtil linkedInUtil, ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${warmup.timeout:PT20S}") Duration timeout,
+                        @Value("${warmup.iterations:2000}") int iterations) {
+        this.geminiAiService = geminiAiService;
+        this.linkedInUtil = linkedInUtil;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r, "warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Void>> tasks = List.of(
+                    CompletableFuture.runAsync(() -> step("Gemini connection", geminiAiService::openConnection), executor),
+                    CompletableFuture.runAsync(() -> step("LinkedIn connection", linkedInUtil::openConnection), executor),
+                    CompletableFuture.runAsync(() -> step("hot paths", this::exerciseHotPaths), executor));
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Warm-up did not finish within {}; reporting ready anyway", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Warm-up failed; reporting ready anyway", e);
+        } finally {
+            executor.shutdownNow();
+            long elapsedNanos = System.nanoTime() - start;
+            meterRegistry.timer("app.warmup").record(elapsedNanos, TimeUnit.NANOSECONDS);
+            logger.info("Warm-up completed in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    /**
+     * Runs the request-path code that does not leave the process, enough times for the JIT to compile it.
+     */
+    private void exerciseHotPaths() throws Exception {
+        GenerateRequest sample = new GenerateRequest();
+        sample.setBusinessName("Warm-up Co");
+        sample.setIndustry("Technology");
+        sample.setTone("Professional");
+        sample.setPlatform("linkedin");
+        sample.setUseCase("Product Launch");
+        String truncated = SAMPLE_RESPONSE.substring(0, SAMPLE_RESPONSE.length() / 2);
+
+        for (int i = 0; i < iterations && !Thread.currentThread().isInterrupted(); i++) {
+            sample.setContentType(i % 2 == 0 ? "post" : "comment");
+            geminiAiService.buildPrompt(sample);
+            objectMapper.readValue(SAMPLE_RESPONSE, new TypeReference<Map<String, Object>>() {});
+            TolerantJsonParser.parse(truncated, objectMapper);
+            linkedInUtil.buildSharePayload("urn:li:person:warmup", "We are live!\nTry it today. \"Quoted\" #launch");
+        }
+    }
+
+    private void step(String name, WarmupStep step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+            logger.debug("Warm-up step '{}' took {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            // A failed warm-up step only costs latency later; it must not block startup
+            logger.warn("Warm-up step '{}' failed: {}", name, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
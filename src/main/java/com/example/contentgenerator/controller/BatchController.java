@@ -0,0 +1,73 @@
+package com.example.contentgenerator.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.model.GenerationBatch;
+import com.example.contentgenerator.service.GeminiBatchService;
+
+/**
+ * REST controller for offline batch generation of large campaigns.
+ */
+@RestController
+@RequestMapping("/api/marketing/batches")
+public class BatchController {
+
+    private final GeminiBatchService geminiBatchService;
+
+    public BatchController(GeminiBatchService geminiBatchService) {
+        this.geminiBatchService = geminiBatchService;
+    }
+
+    /**
+     * Submits a list of {@code /generate} request bodies for batch generation.
+     * Results arrive within hours rather than seconds; requests with a schedule are scheduled
+     * once their content is generated, all others are recorded in the generation history.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@AuthenticationPrincipal Jwt jwt, @RequestBody List<GenerateRequest> requests) {
+        Map<String, String> errors = geminiBatchService.validate(requests);
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("errors", errors));
+        }
+        List<GenerationBatch> batches = geminiBatchService.submit(requests, jwt.getSubject());
+        return ResponseEntity.accepted().body(Map.of("batches", batches));
+    }
+
+    /**
+     * Lists the caller's batches, most recent first.
+     */
+    @GetMapping
+    public Page<GenerationBatch> batches(@AuthenticationPrincipal Jwt jwt,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
+        return geminiBatchService.findBatches(jwt.getSubject(), PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, 100))));
+    }
+
+    /**
+     * Returns one of the caller's batches with its state and result counts.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> batch(@AuthenticationPrincipal Jwt jwt, @PathVariable String id) {
+        GenerationBatch batch = geminiBatchService.findBatch(jwt.getSubject(), id);
+        if (batch == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Batch not found"));
+        }
+        return ResponseEntity.ok(batch);
+    }
+}
@@ -2,25 +2,30 @@
 package com.example.contentgenerator.controller;
 
 import java.io.IOException;
-import java.net.URI;
 import java.util.Map;
 
-import org.springframework.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.service.ApiTokenService;
+import com.example.contentgenerator.service.LinkedInTokenStore;
 import com.example.contentgenerator.service.MarketingService;
 import com.example.contentgenerator.util.LinkedInUtil;
 
-import jakarta.servlet.http.HttpSession;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.Valid;
 
 /**
@@ -31,68 +36,90 @@ import jakarta.validation.Valid;
 @RequestMapping("/api/marketing")
 public class MarketingController {
 
+    private static final Logger logger = LoggerFactory.getLogger(MarketingController.class);
+
     private final MarketingService marketingService;
     private final LinkedInUtil linkedInUtil;
+    private final LinkedInTokenStore linkedInTokenStore;
+    private final ApiTokenService apiTokenService;
+    private final ObservationRegistry observationRegistry;
 
-    public MarketingController(MarketingService marketingService, LinkedInUtil linkedInUtil) {
+    public MarketingController(MarketingService marketingService, LinkedInUtil linkedInUtil,
+                               LinkedInTokenStore linkedInTokenStore, ApiTokenService apiTokenService,
+                               ObservationRegistry observationRegistry) {
         this.marketingService = marketingService;
         this.linkedInUtil = linkedInUtil;
+        this.linkedInTokenStore = linkedInTokenStore;
+        this.apiTokenService = apiTokenService;
+        this.observationRegistry = observationRegistry;
     }
 
     /**
      * Endpoint to generate marketing content.
-     * Supports both Bearer token and session-based authentication.
+     * The caller is identified by the API bearer token; their LinkedIn credentials are resolved
+     * from the server-side token store unless an explicit accessToken is supplied in the body.
      *
      * @param request The request body containing content generation parameters.
-     * @param authorizationHeader The Authorization header (optional).
-     * @param session The HTTP session.
+     * @param regenerate Set to generate new content even if the same request was answered recently.
+     * @param jwt The verified API token of the caller.
      * @return A response entity with the generated content or scheduling status.
      */
     @PostMapping("/generate")
     public ResponseEntity<Map<String, Object>> generateContent(
             @Valid @RequestBody GenerateRequest request,
-            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
-            HttpSession session) {
+            @RequestParam(name = "regenerate", defaultValue = "false") boolean regenerate,
+            @AuthenticationPrincipal Jwt jwt) {
 
-        String accessToken = null;
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            accessToken = authorizationHeader.substring(7);
-        } else {
-            accessToken = (String) session.getAttribute("linkedin_access_token");
-        }
+        String userId = jwt.getSubject();
+        return Observation.createNotStarted("marketing.generate", observationRegistry)
+                .lowCardinalityKeyValue("content.type", request.getContentType())
+                .lowCardinalityKeyValue("scheduled", String.valueOf(request.getSchedule() != null))
+                .highCardinalityKeyValue("user.id", userId)
+                .observe(() -> {
+                    String accessToken = request.getAccessToken();
+                    if (accessToken == null || accessToken.isBlank()) {
+                        accessToken = linkedInTokenStore.find(userId);
+                    }
 
-        if (accessToken == null && "linkedin".equalsIgnoreCase(request.getPlatform())) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "LinkedIn access token not found. Please authenticate."));
-        }
+                    boolean targetsLinkedIn = request.targetPlatforms().stream().anyMatch("linkedin"::equalsIgnoreCase);
+                    if (accessToken == null && targetsLinkedIn) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.<String, Object>of("error", "LinkedIn access token not found. Please authenticate."));
+                    }
 
-        Map<String, Object> response = marketingService.generateContent(request, accessToken);
-        return ResponseEntity.ok(response);
+                    Map<String, Object> response = marketingService.generateContent(request, accessToken, userId, regenerate);
+                    return ResponseEntity.ok(response);
+                });
     }
 
     /**
-     * Redirects the user to LinkedIn's authorization page.
+     * Returns LinkedIn's authorization URL for the calling user.
+     * The state parameter is a signed token identifying the user, so the callback can be served
+     * by any node without a session.
      */
     @GetMapping("/linkedin/auth")
-    public ResponseEntity<Void> linkedInAuth() {
-        String authorizationUrl = linkedInUtil.getAuthorizationUrl();
-        System.out.println(authorizationUrl);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setLocation(URI.create(authorizationUrl));
-        return new ResponseEntity<>(headers, HttpStatus.FOUND);
+    public ResponseEntity<Map<String, String>> linkedInAuth(@AuthenticationPrincipal Jwt jwt) {
+        String authorizationUrl = linkedInUtil.getAuthorizationUrl(apiTokenService.issueLinkedInState(jwt.getSubject()));
+        logger.debug("Issued LinkedIn authorization URL for user {}", jwt.getSubject());
+        return ResponseEntity.ok(Map.of("authorizationUrl", authorizationUrl));
     }
 
     /**
      * Handles the callback from LinkedIn after authorization.
-     * Exchanges the authorization code for an access token, stores it in the session,
-     * and returns the token in the response body for easier use with API clients.
+     * Exchanges the authorization code for an access token and stores it, encrypted,
+     * against the user identified by the signed state parameter.
      */
     @GetMapping("/linkedin/callback")
-    public ResponseEntity<String> linkedInCallback(@RequestParam("code") String code, @RequestParam("state") String state, HttpSession session) {
+    public ResponseEntity<String> linkedInCallback(@RequestParam("code") String code, @RequestParam("state") String state) {
+        String userId;
+        try {
+            userId = apiTokenService.verifyLinkedInState(state);
+        } catch (JwtException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid or expired authorization state.");
+        }
         try {
             String accessToken = linkedInUtil.exchangeCodeForToken(code);
-            session.setAttribute("linkedin_access_token", accessToken);
-            // Return the token in the body for easy use in API clients like Postman
-            return ResponseEntity.ok("Authentication successful. Your access token is: " + accessToken);
+            linkedInTokenStore.save(userId, accessToken);
+            return ResponseEntity.ok("Authentication successful. Your LinkedIn account is now connected.");
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error during LinkedIn authentication: " + e.getMessage());
         }
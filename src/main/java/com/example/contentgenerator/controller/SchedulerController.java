@@ -0,0 +1,179 @@
+package com.example.contentgenerator.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.contentgenerator.dto.ScheduledPostUpdate;
+import com.example.contentgenerator.model.DeadLetterPost;
+import com.example.contentgenerator.repository.DeadLetterPostRepository;
+import com.example.contentgenerator.scheduler.RetryService;
+import com.example.contentgenerator.scheduler.ScheduledPost;
+import com.example.contentgenerator.scheduler.SchedulingService;
+import com.example.contentgenerator.service.BulkImportService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+
+/**
+ * REST controller for inspecting and managing scheduled posts.
+ */
+@RestController
+@RequestMapping("/api/marketing/scheduler")
+public class SchedulerController {
+
+    private final DeadLetterPostRepository deadLetterPostRepository;
+    private final RetryService retryService;
+    private final SchedulingService schedulingService;
+    private final BulkImportService bulkImportService;
+
+    public SchedulerController(DeadLetterPostRepository deadLetterPostRepository, RetryService retryService,
+                               SchedulingService schedulingService, BulkImportService bulkImportService) {
+        this.deadLetterPostRepository = deadLetterPostRepository;
+        this.retryService = retryService;
+        this.schedulingService = schedulingService;
+        this.bulkImportService = bulkImportService;
+    }
+
+    /**
+     * Imports a content calendar as CSV ({@code text/csv}) or NDJSON ({@code application/x-ndjson}).
+     * The upload is processed as it arrives and the response is an NDJSON stream with one result
+     * line per row, followed by a summary line.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public void importCalendar(@AuthenticationPrincipal Jwt jwt, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        BufferedReader input = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        if (new MediaType("text", "csv").isCompatibleWith(MediaType.parseMediaType(request.getContentType()))) {
+            bulkImportService.importCsv(input, jwt.getSubject(), response.getOutputStream());
+        } else {
+            bulkImportService.importNdjson(input, jwt.getSubject(), response.getOutputStream());
+        }
+    }
+
+    /**
+     * Lists the caller's scheduled posts in due-time order, optionally limited to a time range
+     * ({@code from} inclusive, {@code to} exclusive), a platform and a frequency.
+     * Pass the returned {@code nextCursor} back to fetch the next page.
+     */
+    @GetMapping("/posts")
+    public ResponseEntity<Map<String, Object>> scheduledPosts(@AuthenticationPrincipal Jwt jwt,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+                                                              @RequestParam(required = false) String platform,
+                                                              @RequestParam(required = false) String frequency,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "50") int size) {
+        SchedulingService.PostPage page;
+        try {
+            page = schedulingService.findPosts(jwt.getSubject(),
+                    from == null ? null : from.toInstant(), to == null ? null : to.toInstant(),
+                    platform, frequency, cursor, Math.max(1, Math.min(size, 200)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("posts", page.posts());
+        body.put("nextCursor", page.nextCursor());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Returns one of the caller's scheduled posts.
+     */
+    @GetMapping("/posts/{id}")
+    public ResponseEntity<?> scheduledPost(@AuthenticationPrincipal Jwt jwt, @PathVariable String id) {
+        ScheduledPost post = schedulingService.findPost(jwt.getSubject(), id);
+        if (post == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Scheduled post not found"));
+        }
+        return ResponseEntity.ok(post);
+    }
+
+    /**
+     * Changes a scheduled post. Setting {@code dateTime} moves it to a new due time.
+     * Returns 409 if the post is being published at this moment.
+     */
+    @PatchMapping("/posts/{id}")
+    public ResponseEntity<?> updateScheduledPost(@AuthenticationPrincipal Jwt jwt, @PathVariable String id,
+                                                 @Valid @RequestBody ScheduledPostUpdate update) {
+        ScheduledPost post;
+        try {
+            post = schedulingService.updatePost(jwt.getSubject(), id, current -> current.withChanges(update));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (post == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Scheduled post not found"));
+        }
+        return ResponseEntity.ok(post);
+    }
+
+    /**
+     * Cancels a scheduled post and all of its future occurrences.
+     */
+    @DeleteMapping("/posts/{id}")
+    public ResponseEntity<Map<String, Object>> cancelScheduledPost(@AuthenticationPrincipal Jwt jwt, @PathVariable String id) {
+        if (!schedulingService.cancelPost(jwt.getSubject(), id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Scheduled post not found"));
+        }
+        return ResponseEntity.ok(Map.of("id", id, "status", "CANCELLED"));
+    }
+
+    /**
+     * Lists the caller's dead-lettered posts, most recent first.
+     */
+    @GetMapping("/dead-letters")
+    public Page<DeadLetterPost> deadLetters(@AuthenticationPrincipal Jwt jwt,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        return deadLetterPostRepository.findByUserIdOrderByFailedAtDesc(jwt.getSubject(), PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, 100))));
+    }
+
+    /**
+     * Moves a dead-lettered post back into the retry queue for an immediate attempt.
+     * Posts with an image are refused, since the image was not kept.
+     */
+    @PostMapping("/dead-letters/{id}/replay")
+    public ResponseEntity<Map<String, Object>> replay(@AuthenticationPrincipal Jwt jwt, @PathVariable Long id) {
+        DeadLetterPost deadLetter = deadLetterPostRepository.findById(id)
+                .filter(post -> jwt.getSubject().equals(post.getUserId()))
+                .orElse(null);
+        if (deadLetter != null && deadLetter.isImage()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Image posts cannot be replayed; schedule the post again"));
+        }
+        // A concurrent replay may have taken it between the read and here
+        if (deadLetter == null || !retryService.replay(deadLetter)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Dead-lettered post not found"));
+        }
+        return ResponseEntity.accepted().body(Map.of("id", id, "status", "REPLAY_QUEUED"));
+    }
+}
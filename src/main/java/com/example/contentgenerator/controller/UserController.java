@@ -1,7 +1,12 @@
 package com.example.contentgenerator.controller;
 
+import com.example.contentgenerator.model.User;
+import com.example.contentgenerator.repository.UserRepository;
+import com.example.contentgenerator.service.ApiTokenService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,20 +20,42 @@ public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    private final UserRepository userRepository;
+    private final ApiTokenService apiTokenService;
+
+    public UserController(UserRepository userRepository, ApiTokenService apiTokenService) {
+        this.userRepository = userRepository;
+        this.apiTokenService = apiTokenService;
+    }
+
     @GetMapping("/api/user")
     public Map<String, Object> user(@AuthenticationPrincipal OAuth2User principal) {
-        logger.info("Calling /api/user endpoint");
         if (principal == null) {
-            logger.warn("Principal is null in /api/user");
+            logger.debug("Principal is null in /api/user");
             return Collections.singletonMap("error", "Not authenticated");
         }
-        logger.info("Principal in /api/user: {}", principal.getAttributes());
+        // Attributes hold personal data; only the principal name is logged
+        logger.debug("Returning profile for principal {}", principal.getName());
         return principal.getAttributes();
     }
 
+    /**
+     * Exchanges the logged-in browser session for a bearer token for the stateless marketing API.
+     */
+    @GetMapping("/api/token")
+    public ResponseEntity<Map<String, Object>> token(@AuthenticationPrincipal OAuth2User principal) {
+        String email = principal != null ? principal.getAttribute("email") : null;
+        User user = email != null ? userRepository.findByEmail(email) : null;
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
+        }
+        String token = apiTokenService.issueApiToken(String.valueOf(user.getId()), email);
+        return ResponseEntity.ok(Map.of("accessToken", token, "tokenType", "Bearer"));
+    }
+
     @GetMapping("/hello")
     public String hello() {
-        logger.info("Calling /hello endpoint");
+        logger.debug("Calling /hello endpoint");
         return "Hello";
     }
 }
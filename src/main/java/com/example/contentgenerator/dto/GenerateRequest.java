@@ -1,10 +1,13 @@
 
 package com.example.contentgenerator.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 
+import java.util.List;
+
 /**
  * DTO for the content generation request.
  * Includes validation rules for all fields.
@@ -23,6 +26,9 @@ public class GenerateRequest {
     @NotBlank(message = "Platform is required.")
     private String platform;
 
+    // Optional: publish to several platforms at once; defaults to the single platform above
+    private List<String> platforms;
+
     @NotBlank(message = "Use case is required.")
     private String useCase;
 
@@ -75,6 +81,29 @@ public class GenerateRequest {
         this.platform = platform;
     }
 
+    public List<String> getPlatforms() {
+        return platforms;
+    }
+
+    public void setPlatforms(List<String> platforms) {
+        this.platforms = platforms;
+    }
+
+    /**
+     * Returns the platforms to publish to: the platforms list if given, otherwise the single platform.
+     */
+    public List<String> targetPlatforms() {
+        return platforms != null && !platforms.isEmpty() ? platforms : List.of(platform);
+    }
+
+    /**
+     * True if this is an image post: the generated text is the caption and an image is generated alongside it.
+     */
+    @JsonIgnore
+    public boolean isImage() {
+        return "image".equalsIgnoreCase(contentType);
+    }
+
     public String getUseCase() {
         return useCase;
     }
@@ -1,6 +1,10 @@
 
 package com.example.contentgenerator.dto;
 
+import com.example.contentgenerator.scheduler.RecurrenceRule;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -10,6 +14,7 @@ import java.time.ZonedDateTime;
 /**
  * DTO for scheduling parameters.
  * Contains validation rules for dateTime and frequency.
+ * A custom frequency takes its recurrence from {@code rule}: a cron expression or an RRULE (see {@link RecurrenceRule}).
  */
 public class ScheduleRequest {
 
@@ -17,9 +22,15 @@ public class ScheduleRequest {
     private ZonedDateTime dateTime;
 
     @NotBlank(message = "Frequency is required for scheduled posts.")
-    @Pattern(regexp = "once|daily|weekly", message = "Frequency must be one of: once, daily, weekly")
+    @Pattern(regexp = "once|daily|weekly|weekdays|monthly|custom", message = "Frequency must be one of: once, daily, weekly, weekdays, monthly, custom")
     private String frequency;
 
+    private String rule;
+
+    // eager: content is generated now; deferred: generated shortly before each fire time
+    @Pattern(regexp = "eager|deferred", message = "Generation must be one of: eager, deferred")
+    private String generation = "eager";
+
     @Pattern(regexp = "individual|page", message = "PostTo must be one of: individual, page")
     private String postTo = "individual"; // Default to individual
 
@@ -42,6 +53,33 @@ public class ScheduleRequest {
         this.frequency = frequency;
     }
 
+    public String getRule() {
+        return rule;
+    }
+
+    public void setRule(String rule) {
+        this.rule = rule;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Rule must be a valid cron expression or RRULE for custom frequency.")
+    public boolean isRuleValid() {
+        return !"custom".equals(frequency) || RecurrenceRule.isValid(rule);
+    }
+
+    public String getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(String generation) {
+        this.generation = generation;
+    }
+
+    @JsonIgnore
+    public boolean isDeferred() {
+        return "deferred".equals(generation);
+    }
+
     public String getPostTo() {
         return postTo;
     }
@@ -0,0 +1,90 @@
+package com.example.contentgenerator.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * DTO for changing a scheduled post.
+ * Only the fields that are set are changed; setting dateTime moves the post.
+ */
+public class ScheduledPostUpdate {
+
+    private String content;
+
+    @Size(min = 1, message = "At least one platform is required.")
+    private List<String> platforms;
+
+    @Future(message = "Schedule date must be in the future.")
+    private ZonedDateTime dateTime;
+
+    @Pattern(regexp = "once|daily|weekly|weekdays|monthly|custom", message = "Frequency must be one of: once, daily, weekly, weekdays, monthly, custom")
+    private String frequency;
+
+    private String rule;
+
+    @Pattern(regexp = "individual|page", message = "PostTo must be one of: individual, page")
+    private String postTo;
+
+    private String pageId;
+
+    // Getters and Setters
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public List<String> getPlatforms() {
+        return platforms;
+    }
+
+    public void setPlatforms(List<String> platforms) {
+        this.platforms = platforms;
+    }
+
+    public ZonedDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public void setDateTime(ZonedDateTime dateTime) {
+        this.dateTime = dateTime;
+    }
+
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(String frequency) {
+        this.frequency = frequency;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public void setRule(String rule) {
+        this.rule = rule;
+    }
+
+    public String getPostTo() {
+        return postTo;
+    }
+
+    public void setPostTo(String postTo) {
+        this.postTo = postTo;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public void setPageId(String pageId) {
+        this.pageId = pageId;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.contentgenerator.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * A scheduled dispatch that kept failing after all retries.
+ * Credentials are not stored; they are resolved for the user again on replay.
+ * Images are not stored either, so a dispatch that carried one is kept for inspection but cannot be replayed.
+ */
+@Entity
+@Table(name = "dead_letter_posts", indexes = @Index(name = "idx_dead_letter_user", columnList = "userId, failedAt"))
+public class DeadLetterPost {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String userId;
+    private String platform;
+
+    @Column(columnDefinition = "TEXT")
+    private String content;
+    private String postTo;
+    private String pageId;
+
+    // Default for rows stored before the column existed
+    @Column(columnDefinition = "boolean default false")
+    private boolean image;
+    private int attempts;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+    private Instant failedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public void setPlatform(String platform) {
+        this.platform = platform;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getPostTo() {
+        return postTo;
+    }
+
+    public void setPostTo(String postTo) {
+        this.postTo = postTo;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public void setPageId(String pageId) {
+        this.pageId = pageId;
+    }
+
+    public boolean isImage() {
+        return image;
+    }
+
+    public void setImage(boolean image) {
+        this.image = image;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(Instant failedAt) {
+        this.failedAt = failedAt;
+    }
+}
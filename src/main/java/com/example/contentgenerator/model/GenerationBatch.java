@@ -0,0 +1,177 @@
+package com.example.contentgenerator.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * One Gemini batch job submitted for a user.
+ * The submitted requests are kept as JSON so the results can be ingested by any node, also after a restart.
+ * While a node submits or ingests a batch it holds a lease on it, identified by a claim token and renewed
+ * as the work progresses; another node may take over a claim whose lease ran out.
+ */
+@Entity
+@Table(name = "generation_batches", indexes = {
+        @Index(name = "idx_generation_batch_state", columnList = "state"),
+        @Index(name = "idx_generation_batch_user", columnList = "userId, createdAt")
+})
+public class GenerationBatch {
+
+    public static final String SUBMITTING = "SUBMITTING";
+    public static final String RUNNING = "RUNNING";
+    public static final String INGESTING = "INGESTING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private String id;
+    private String userId;
+    private String model;
+    private String jobName;
+    private String state;
+    private int requestCount;
+    private int succeeded;
+    private int failed;
+
+    // Entries below this index have been ingested; a node taking over an ingest resumes here
+    private int ingested;
+
+    private String claimToken;
+    private Instant leaseUntil;
+
+    // JSON array of the submitted GenerateRequests; the position is the entry key
+    @Column(columnDefinition = "TEXT")
+    private String requests;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+    private Instant createdAt;
+    private Instant completedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    public void setRequestCount(int requestCount) {
+        this.requestCount = requestCount;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public int getIngested() {
+        return ingested;
+    }
+
+    public void setIngested(int ingested) {
+        this.ingested = ingested;
+    }
+
+    @JsonIgnore
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public Instant getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(Instant leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    @JsonIgnore
+    public String getRequests() {
+        return requests;
+    }
+
+    public void setRequests(String requests) {
+        this.requests = requests;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.contentgenerator.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * A cached Gemini generation, shared by all nodes.
+ * Rows are read and written by the generation cache with plain SQL, not through JPA; the entity
+ * defines the table. The payload is the binary encoding of the result, looked up by the SHA-256
+ * of the canonical request.
+ */
+@Entity
+@Table(name = "generation_cache", indexes = {
+        @Index(name = "idx_generation_cache_hash", columnList = "requestHash", unique = true),
+        @Index(name = "idx_generation_cache_expiry", columnList = "expiresAt")
+})
+public class GenerationCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private byte[] requestHash;
+
+    @Column(nullable = false)
+    private byte[] payload;
+    private Instant expiresAt;
+    private Instant createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public byte[] getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(byte[] requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
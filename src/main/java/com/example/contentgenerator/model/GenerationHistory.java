@@ -0,0 +1,177 @@
+package com.example.contentgenerator.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * One generation or publish outcome.
+ * Rows are written in batches by the history write-behind queue, not through JPA; the entity
+ * defines the table and is used for reads.
+ */
+@Entity
+@Table(name = "generation_history", indexes = {
+        @Index(name = "idx_generation_history_user", columnList = "userId, createdAt"),
+        @Index(name = "idx_generation_history_post", columnList = "postId")
+})
+public class GenerationHistory {
+
+    public static final String GENERATED = "GENERATED";
+    public static final String PUBLISHED = "PUBLISHED";
+
+    @Id
+    private String id;
+    private String eventType;
+    private String requestId;
+    private String postId;
+    private String userId;
+    private String platform;
+    private String contentType;
+    private String model;
+
+    @Column(columnDefinition = "TEXT")
+    private String content;
+    private String status;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+    private Long latencyMillis;
+    // SimHash of published content, used to rebuild the near-duplicate index
+    private Long simhash;
+    // Token counts reported by Gemini for generation events
+    private Integer inputTokens;
+    private Integer outputTokens;
+    private Instant createdAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getPostId() {
+        return postId;
+    }
+
+    public void setPostId(String postId) {
+        this.postId = postId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public void setPlatform(String platform) {
+        this.platform = platform;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(Long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public Long getSimhash() {
+        return simhash;
+    }
+
+    public void setSimhash(Long simhash) {
+        this.simhash = simhash;
+    }
+
+    public Integer getInputTokens() {
+        return inputTokens;
+    }
+
+    public void setInputTokens(Integer inputTokens) {
+        this.inputTokens = inputTokens;
+    }
+
+    public Integer getOutputTokens() {
+        return outputTokens;
+    }
+
+    public void setOutputTokens(Integer outputTokens) {
+        this.outputTokens = outputTokens;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.contentgenerator.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "linkedin_credentials")
+public class LinkedInCredential {
+
+    @Id
+    private String userId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String encryptedAccessToken;
+
+    private Instant updatedAt;
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getEncryptedAccessToken() {
+        return encryptedAccessToken;
+    }
+
+    public void setEncryptedAccessToken(String encryptedAccessToken) {
+        this.encryptedAccessToken = encryptedAccessToken;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.contentgenerator.publisher;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+
+import com.example.contentgenerator.service.LinkedInTokenStore;
+import com.example.contentgenerator.util.LinkedInUtil;
+
+/**
+ * Publishes to a LinkedIn member profile or organization page.
+ */
+@Component
+public class LinkedInPublisher implements Publisher {
+
+    private final LinkedInUtil linkedInUtil;
+    private final LinkedInTokenStore linkedInTokenStore;
+
+    public LinkedInPublisher(LinkedInUtil linkedInUtil, LinkedInTokenStore linkedInTokenStore) {
+        this.linkedInUtil = linkedInUtil;
+        this.linkedInTokenStore = linkedInTokenStore;
+    }
+
+    @Override
+    public String platform() {
+        return "linkedin";
+    }
+
+    @Override
+    public void publish(PublishRequest request) throws IOException {
+        String accessToken = request.getAccessToken();
+        if (accessToken == null || accessToken.isBlank()) {
+            accessToken = linkedInTokenStore.find(request.getUserId());
+        }
+        if ("page".equalsIgnoreCase(request.getPostTo())) {
+            linkedInUtil.postToPage(accessToken, request.getContent(), request.getPageId(), request.getImage());
+        } else {
+            linkedInUtil.post(accessToken, request.getContent(), request.getImage());
+        }
+    }
+}
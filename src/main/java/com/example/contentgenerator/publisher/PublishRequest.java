@@ -0,0 +1,59 @@
+package com.example.contentgenerator.publisher;
+
+import com.example.contentgenerator.util.SpooledImage;
+
+/**
+ * Content to publish, along with the target options shared by all platforms of a request.
+ */
+public class PublishRequest {
+
+    private final String userId;
+    private final String content;
+    private final String accessToken;
+    private final String postTo;
+    private final String pageId;
+    private final SpooledImage image;
+
+    public PublishRequest(String userId, String content, String accessToken, String postTo, String pageId) {
+        this(userId, content, accessToken, postTo, pageId, null);
+    }
+
+    public PublishRequest(String userId, String content, String accessToken, String postTo, String pageId, SpooledImage image) {
+        this.userId = userId;
+        this.content = content;
+        this.accessToken = accessToken;
+        this.postTo = postTo;
+        this.pageId = pageId;
+        this.image = image;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * Explicit credentials supplied by the caller, or null to let the publisher resolve them for the user.
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getPostTo() {
+        return postTo;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    /**
+     * Image to attach, or null for a text-only post. Publishers that cannot post images ignore it.
+     */
+    public SpooledImage getImage() {
+        return image;
+    }
+}
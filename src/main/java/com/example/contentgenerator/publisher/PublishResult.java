@@ -0,0 +1,58 @@
+package com.example.contentgenerator.publisher;
+
+/**
+ * Outcome of publishing to a single platform.
+ */
+public class PublishResult {
+
+    public enum Status {
+        POSTED,
+        FAILED,
+        /** No answer within the timeout; the platform may or may not have accepted the post. */
+        TIMED_OUT,
+        UNSUPPORTED
+    }
+
+    private final String platform;
+    private final Status status;
+    private final String error;
+    private final long durationMillis;
+
+    public PublishResult(String platform, Status status, String error, long durationMillis) {
+        this.platform = platform;
+        this.status = status;
+        this.error = error;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * True if the platform was attempted and definitely did not accept the post.
+     */
+    public boolean isFailure() {
+        return status == Status.FAILED;
+    }
+
+    /**
+     * True if the platform was attempted but it is not known whether it accepted the post,
+     * so sending it again may publish it twice.
+     */
+    public boolean isUnknown() {
+        return status == Status.TIMED_OUT;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.contentgenerator.publisher;
+
+import java.io.IOException;
+
+/**
+ * Publishes content to one social platform.
+ * Implementations are Spring beans and are discovered by the {@link PublisherRegistry};
+ * adding a platform only requires adding a new implementation.
+ */
+public interface Publisher {
+
+    /**
+     * The platform key this publisher handles, matched case-insensitively against request platforms.
+     */
+    String platform();
+
+    /**
+     * Publishes the content. Called concurrently with other publishers for the same request.
+     *
+     * @param request The content and credentials to publish with.
+     * @throws IOException If the platform rejects the post or cannot be reached.
+     */
+    void publish(PublishRequest request) throws IOException;
+}
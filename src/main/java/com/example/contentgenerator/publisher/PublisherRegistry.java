@@ -0,0 +1,208 @@
+package com.example.contentgenerator.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Registry of all {@link Publisher} beans, keyed by platform.
+ * Fans a single piece of content out to several platforms concurrently, so the total time is
+ * bounded by the slowest platform (or its timeout) rather than the sum of all of them.
+ */
+@Component
+public class PublisherRegistry implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublisherRegistry.class);
+
+    private final Map<String, Publisher> publishers = new LinkedHashMap<>();
+    private final long timeoutMillis;
+    private final long imageTimeoutMillis;
+    private final ExecutorService executor;
+    private final ObservationRegistry observationRegistry;
+
+    public PublisherRegistry(List<Publisher> publishers, ObservationRegistry observationRegistry,
+                             @Value("${publisher.timeout:PT15S}") Duration timeout,
+                             @Value("${publisher.image-timeout:PT2M30S}") Duration imageTimeout,
+                             @Value("${linkedin.upload.timeout:PT2M}") Duration uploadTimeout,
+                             @Value("${publisher.max-concurrency:32}") int maxConcurrency) {
+        // An image post spends its whole upload inside the publish timeout
+        if (imageTimeout.compareTo(uploadTimeout) < 0 || imageTimeout.compareTo(timeout) < 0) {
+            throw new IllegalArgumentException("publisher.image-timeout (" + imageTimeout
+                    + ") must be at least linkedin.upload.timeout (" + uploadTimeout + ") and publisher.timeout (" + timeout + ")");
+        }
+        for (Publisher publisher : publishers) {
+            this.publishers.put(publisher.platform().toLowerCase(Locale.ROOT), publisher);
+        }
+        this.timeoutMillis = timeout.toMillis();
+        this.imageTimeoutMillis = imageTimeout.toMillis();
+        this.observationRegistry = observationRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(maxConcurrency, r -> {
+            Thread thread = new Thread(r, "publisher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Publishing runs under the caller's observation, so platform calls show up in the caller's trace
+        ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+        this.executor = ContextExecutorService.wrap(pool, () -> snapshots.captureAll());
+        logger.info("Registered publishers for platforms: {}", this.publishers.keySet());
+    }
+
+    public boolean supports(String platform) {
+        return platform != null && publishers.containsKey(platform.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Publishes the request to every given platform concurrently and waits for all of them.
+     * Each platform is given at most {@code publisher.timeout}, or {@code publisher.image-timeout} when the
+     * request carries an image, since the upload happens inside it; a platform that has not finished
+     * by then is reported as TIMED_OUT without holding up the others, and its task is interrupted
+     * (or dropped, if it has not started yet). A TIMED_OUT post may still have reached the platform.
+     *
+     * @param platforms The target platforms.
+     * @param request The content to publish.
+     * @return The result per platform, in the order the platforms were given.
+     */
+    public Map<String, PublishResult> publishAll(List<String> platforms, PublishRequest request) {
+        List<CompletableFuture<PublishResult>> futures = new ArrayList<>();
+        for (String platform : platforms) {
+            futures.add(publishAsync(platform, request));
+        }
+        Map<String, PublishResult> results = new LinkedHashMap<>();
+        for (CompletableFuture<PublishResult> future : futures) {
+            PublishResult result = future.join();
+            results.put(result.getPlatform(), result);
+        }
+        return results;
+    }
+
+    private CompletableFuture<PublishResult> publishAsync(String platform, PublishRequest request) {
+        Publisher publisher = supports(platform) ? publishers.get(platform.toLowerCase(Locale.ROOT)) : null;
+        if (publisher == null) {
+            logger.warn("Platform '{}' not supported for posting.", platform);
+            return CompletableFuture.completedFuture(new PublishResult(platform, PublishResult.Status.UNSUPPORTED,
+                    "Platform not supported", 0));
+        }
+        PublishTask task = new PublishTask(publisher, platform, request);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.releaseImage();
+            throw e;
+        }
+        long timeout = request.getImage() != null ? imageTimeoutMillis : timeoutMillis;
+        task.result.completeOnTimeout(new PublishResult(platform, PublishResult.Status.TIMED_OUT,
+                "Timed out after " + timeout + " ms; the post may still have been published", timeout),
+                timeout, TimeUnit.MILLISECONDS);
+        return task.result.whenComplete((result, error) -> {
+            if (result != null && result.getStatus() == PublishResult.Status.TIMED_OUT) {
+                task.cancel();
+            }
+        });
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Publishes to one platform. Cancelling it interrupts the publishing thread, so a blocked
+     * platform call is abandoned instead of occupying a publisher thread after the caller gave up;
+     * a task cancelled before it started does not publish at all.
+     * <p>
+     * The task holds its own reference to the request's image until it ends, since an interrupted
+     * upload may still be reading the file after the caller has stopped waiting and released its own.
+     */
+    private final class PublishTask implements Runnable {
+        private final Publisher publisher;
+        private final String platform;
+        private final PublishRequest request;
+        private final CompletableFuture<PublishResult> result = new CompletableFuture<>();
+        private final long start = System.nanoTime();
+        private Thread runner;
+        private boolean cancelled;
+
+        PublishTask(Publisher publisher, String platform, PublishRequest request) {
+            this.publisher = publisher;
+            this.platform = platform;
+            this.request = request;
+            if (request.getImage() != null) {
+                request.getImage().retain();
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (cancelled) {
+                    releaseImage();
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            Observation observation = Observation.createNotStarted("publisher.publish", observationRegistry)
+                    .lowCardinalityKeyValue("platform", publisher.platform())
+                    .start();
+            try (Observation.Scope scope = observation.openScope()) {
+                publisher.publish(request);
+                if (!result.complete(new PublishResult(platform, PublishResult.Status.POSTED, null, elapsedMillis(start)))) {
+                    logger.warn("Publishing to {} succeeded after it was reported as timed out", platform);
+                }
+            } catch (Exception e) {
+                observation.error(e);
+                if (result.isDone()) {
+                    logger.warn("Publishing to {} was abandoned after the timeout: {}", platform, e.getMessage());
+                } else {
+                    logger.error("Publishing to {} failed", platform, e);
+                }
+                result.complete(new PublishResult(platform, PublishResult.Status.FAILED, e.getMessage(), elapsedMillis(start)));
+            } finally {
+                observation.stop();
+                releaseImage();
+                synchronized (this) {
+                    runner = null;
+                    // An interrupt meant for this task must not leak into the next one on this thread
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        void releaseImage() {
+            if (request.getImage() != null) {
+                request.getImage().release();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
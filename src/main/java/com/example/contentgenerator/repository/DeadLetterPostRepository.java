@@ -0,0 +1,22 @@
+package com.example.contentgenerator.repository;
+
+import com.example.contentgenerator.model.DeadLetterPost;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface DeadLetterPostRepository extends JpaRepository<DeadLetterPost, Long> {
+    Page<DeadLetterPost> findByUserIdOrderByFailedAtDesc(String userId, Pageable pageable);
+
+    /**
+     * Deletes the entry if it still exists. Only one of several concurrent callers gets 1 back.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from DeadLetterPost d where d.id = :id")
+    int deleteIfPresent(@Param("id") Long id);
+}
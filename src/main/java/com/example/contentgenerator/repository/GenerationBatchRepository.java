@@ -0,0 +1,86 @@
+package com.example.contentgenerator.repository;
+
+import com.example.contentgenerator.model.GenerationBatch;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface GenerationBatchRepository extends JpaRepository<GenerationBatch, String> {
+    List<GenerationBatch> findByState(String state);
+
+    List<GenerationBatch> findByStateAndLeaseUntilBefore(String state, Instant now);
+
+    Optional<GenerationBatch> findByIdAndUserId(String id, String userId);
+
+    Page<GenerationBatch> findByUserIdOrderByCreatedAtDesc(String userId, Pageable pageable);
+
+    /**
+     * Claims a batch for this caller by moving it to a new state under a fresh lease,
+     * only if it is still in the expected state.
+     *
+     * @return 1 if this caller holds the claim, 0 otherwise.
+     */
+    @Modifying
+    @Transactional
+    @Query("update GenerationBatch b set b.state = :to, b.claimToken = :token, b.leaseUntil = :leaseUntil "
+            + "where b.id = :id and b.state = :from")
+    int claim(@Param("id") String id, @Param("from") String from, @Param("to") String to,
+              @Param("token") String token, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Takes over a claim whose lease ran out, e.g. because the node holding it died.
+     *
+     * @return 1 if this caller now holds the claim, 0 otherwise.
+     */
+    @Modifying
+    @Transactional
+    @Query("update GenerationBatch b set b.claimToken = :token, b.leaseUntil = :leaseUntil "
+            + "where b.id = :id and b.state = :state and b.leaseUntil < :now")
+    int takeOver(@Param("id") String id, @Param("state") String state, @Param("token") String token,
+                 @Param("leaseUntil") Instant leaseUntil, @Param("now") Instant now);
+
+    /**
+     * Records ingest progress and extends the lease, only while the caller still holds the claim.
+     *
+     * @return 1 if the claim is still held, 0 if another node took it over.
+     */
+    @Modifying
+    @Transactional
+    @Query("update GenerationBatch b set b.ingested = :ingested, b.succeeded = :succeeded, b.leaseUntil = :leaseUntil "
+            + "where b.id = :id and b.claimToken = :token and b.state = 'INGESTING'")
+    int renew(@Param("id") String id, @Param("token") String token, @Param("ingested") int ingested,
+              @Param("succeeded") int succeeded, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Records the accepted job of a batch, only if it is still being submitted by the caller.
+     *
+     * @return 1 if the batch is now running, 0 if its submission was given up in the meantime.
+     */
+    @Modifying
+    @Transactional
+    @Query("update GenerationBatch b set b.state = 'RUNNING', b.jobName = :jobName, b.claimToken = null, b.leaseUntil = null "
+            + "where b.id = :id and b.claimToken = :token and b.state = 'SUBMITTING'")
+    int submitted(@Param("id") String id, @Param("token") String token, @Param("jobName") String jobName);
+
+    /**
+     * Ends a claimed batch with its final counts, only while the caller still holds the claim.
+     *
+     * @return 1 if the batch was finished by this caller, 0 otherwise.
+     */
+    @Modifying
+    @Transactional
+    @Query("update GenerationBatch b set b.state = :state, b.succeeded = :succeeded, b.failed = :failed, b.ingested = :ingested, "
+            + "b.error = :error, b.completedAt = :completedAt, b.claimToken = null, b.leaseUntil = null "
+            + "where b.id = :id and b.claimToken = :token")
+    int finish(@Param("id") String id, @Param("token") String token, @Param("state") String state,
+               @Param("succeeded") int succeeded, @Param("failed") int failed, @Param("ingested") int ingested,
+               @Param("error") String error, @Param("completedAt") Instant completedAt);
+}
@@ -0,0 +1,7 @@
+package com.example.contentgenerator.repository;
+
+import com.example.contentgenerator.model.LinkedInCredential;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LinkedInCredentialRepository extends JpaRepository<LinkedInCredential, String> {
+}
@@ -0,0 +1,164 @@
+package com.example.contentgenerator.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.service.AiResponseParser;
+import com.example.contentgenerator.service.DuplicateContentIndex;
+import com.example.contentgenerator.service.GeminiAiService;
+import com.example.contentgenerator.service.GenerationHistoryService;
+import com.example.contentgenerator.service.GenerationPriority;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Generates content for deferred posts ahead of their fire time.
+ * Posts due within the lead time (plus one run interval, so none slips through between runs) are
+ * always generated, on the BATCH lane. During the off-peak window, posts due within the longer
+ * look-ahead are generated as well, on the BACKGROUND lane, so most of the work happens while
+ * interactive traffic is low. The tick therefore finds content ready and never waits on Gemini,
+ * unless generation keeps failing for the whole lead time.
+ * Each run walks the pending posts once, so a post that keeps failing never holds back the ones due after it;
+ * a failed post is retried after a backoff that starts at one run interval and doubles up to
+ * {@code scheduler.prewarm.max-backoff}.
+ */
+@Service
+public class PrewarmService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrewarmService.class);
+
+    private final SchedulingService schedulingService;
+    private final GeminiAiService geminiAiService;
+    private final AiResponseParser aiResponseParser;
+    private final GenerationHistoryService generationHistoryService;
+    private final DuplicateContentIndex duplicateContentIndex;
+    private final MeterRegistry meterRegistry;
+    private final Duration interval;
+    private final Duration leadTime;
+    private final Duration maxBackoff;
+    private final Duration lookahead;
+    private final int batchSize;
+    private final LocalTime offPeakStart;
+    private final LocalTime offPeakEnd;
+    private final ZoneId zone;
+
+    public PrewarmService(SchedulingService schedulingService, GeminiAiService geminiAiService,
+                          AiResponseParser aiResponseParser, GenerationHistoryService generationHistoryService,
+                          DuplicateContentIndex duplicateContentIndex, MeterRegistry meterRegistry,
+                          @Value("${scheduler.prewarm.interval:PT5M}") Duration interval,
+                          @Value("${scheduler.prewarm.lead-time:PT30M}") Duration leadTime,
+                          @Value("${scheduler.prewarm.lookahead:PT24H}") Duration lookahead,
+                          @Value("${scheduler.prewarm.batch-size:50}") int batchSize,
+                          @Value("${scheduler.prewarm.max-backoff:PT2H}") Duration maxBackoff,
+                          @Value("${scheduler.prewarm.off-peak:22:00-06:00}") String offPeak,
+                          @Value("${scheduler.prewarm.zone:UTC}") String zone) {
+        this.schedulingService = schedulingService;
+        this.geminiAiService = geminiAiService;
+        this.aiResponseParser = aiResponseParser;
+        this.generationHistoryService = generationHistoryService;
+        this.duplicateContentIndex = duplicateContentIndex;
+        this.meterRegistry = meterRegistry;
+        this.interval = interval;
+        this.leadTime = leadTime.plus(interval);
+        this.maxBackoff = maxBackoff;
+        this.lookahead = lookahead;
+        this.batchSize = batchSize;
+        String[] window = offPeak.split("-");
+        this.offPeakStart = LocalTime.parse(window[0].trim());
+        this.offPeakEnd = LocalTime.parse(window[1].trim());
+        this.zone = ZoneId.of(zone);
+    }
+
+    @Scheduled(fixedDelayString = "${scheduler.prewarm.interval:PT5M}")
+    public void prewarm() {
+        Instant now = Instant.now();
+        Instant urgentUntil = now.plus(leadTime);
+        Instant until = isOffPeak(now) ? now.plus(lookahead) : urgentUntil;
+        int generated = 0;
+        String cursor = null;
+        do {
+            SchedulingService.PostPage page = schedulingService.findPendingGeneration(cursor, until, now, batchSize);
+            if (!page.posts().isEmpty()) {
+                generated += generateBatch(page.posts(), urgentUntil);
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        if (generated > 0) {
+            logger.info("Pre-warmed content for {} deferred post(s)", generated);
+        }
+    }
+
+    private int generateBatch(List<ScheduledPost> batch, Instant urgentUntil) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (ScheduledPost post : batch) {
+            GenerationPriority priority = post.getDateTime().toInstant().isBefore(urgentUntil)
+                    ? GenerationPriority.BATCH : GenerationPriority.BACKGROUND;
+            GenerateRequest request = post.getGenerationRequest();
+            results.add(geminiAiService.submitGeneration(request, priority, post.getUserId())
+                    .thenApply(generation -> {
+                        String content = aiResponseParser.parse(generation.getText()).getContent();
+                        if (duplicateContentIndex.getAction() == DuplicateContentIndex.Action.REGENERATE
+                                && duplicateContentIndex.isDuplicate(post.getUserId(), content)) {
+                            generationHistoryService.recordGeneration(post.getUserId(), null, post.getId(), request, generation,
+                                    content, "DUPLICATE", null);
+                            if (schedulingService.tryRegenerate(post)) {
+                                // Left without content so the next run generates it again, bypassing the cached result
+                                geminiAiService.invalidateCached(request, post.getUserId());
+                                return false;
+                            }
+                            // Budget used up: the duplicate is attached and the fire-time check skips the occurrence
+                            return schedulingService.attachContent(post, content);
+                        }
+                        generationHistoryService.recordGeneration(post.getUserId(), null, post.getId(), request, generation,
+                                content, content.isBlank() ? "EMPTY" : "SUCCESS", null);
+                        if (content.isBlank()) {
+                            backOff(post);
+                            return false;
+                        }
+                        return schedulingService.attachContent(post, content);
+                    })
+                    .exceptionally(e -> {
+                        generationHistoryService.recordGeneration(post.getUserId(), null, post.getId(), request, null,
+                                null, "FAILED", e.getMessage());
+                        Instant retryAt = backOff(post);
+                        logger.warn("Pre-warm generation for post {} failed, next attempt at {}: {}", post.getId(), retryAt,
+                                e.getMessage());
+                        return false;
+                    }));
+        }
+        int stored = 0;
+        for (CompletableFuture<Boolean> result : results) {
+            if (result.join()) {
+                stored++;
+            }
+        }
+        meterRegistry.counter("scheduler.prewarm.generated").increment(stored);
+        meterRegistry.counter("scheduler.prewarm.failed").increment(batch.size() - stored);
+        return stored;
+    }
+
+    private Instant backOff(ScheduledPost post) {
+        return schedulingService.backOffGeneration(post, Instant.now(), interval, maxBackoff);
+    }
+
+    private boolean isOffPeak(Instant now) {
+        LocalTime time = now.atZone(zone).toLocalTime();
+        if (offPeakStart.isBefore(offPeakEnd)) {
+            return !time.isBefore(offPeakStart) && time.isBefore(offPeakEnd);
+        }
+        // Window wraps past midnight
+        return !time.isBefore(offPeakStart) || time.isBefore(offPeakEnd);
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.contentgenerator.scheduler;
+
+import java.time.DayOfWeek;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.scheduling.support.CronExpression;
+
+/**
+ * When a scheduled post repeats.
+ * <p>
+ * Supports the simple frequencies ({@code once}, {@code daily}, {@code weekly}, {@code weekdays},
+ * {@code monthly}) and {@code custom} rules given either as a cron expression
+ * ({@code "0 0 9-17/3 * * MON-FRI"}) or as an iCalendar RRULE subset
+ * ({@code "FREQ=HOURLY;INTERVAL=3;BYHOUR=9,10,11,12,13,14,15,16,17;BYDAY=MO,TU,WE,TH,FR"}),
+ * which is translated to the equivalent cron expression.
+ * <p>
+ * Occurrences are computed from the first occurrence (the anchor) in the anchor's time zone, so the
+ * next fire time is O(1) regardless of how many occurrences were missed, local wall-clock time is kept
+ * across DST changes, and monthly posts on the 31st return to the 31st after a short month.
+ */
+public final class RecurrenceRule {
+
+    private static final Set<String> RRULE_PARTS = Set.of("FREQ", "INTERVAL", "BYMINUTE", "BYHOUR", "BYDAY", "BYMONTHDAY");
+    private static final Map<String, String> RRULE_DAYS = Map.of(
+            "MO", "MON", "TU", "TUE", "WE", "WED", "TH", "THU", "FR", "FRI", "SA", "SAT", "SU", "SUN");
+
+    private enum Kind { ONCE, DAILY, WEEKLY, WEEKDAYS, MONTHLY, CUSTOM }
+
+    private final Kind kind;
+    private final ZonedDateTime anchor;
+    private final CronExpression cron;
+
+    private RecurrenceRule(Kind kind, ZonedDateTime anchor, CronExpression cron) {
+        this.kind = kind;
+        this.cron = cron;
+        this.anchor = kind == Kind.CUSTOM || (kind == Kind.WEEKDAYS && isWeekend(anchor))
+                ? firstMatch(kind, anchor, cron) : anchor;
+    }
+
+    /**
+     * Builds the rule for a post.
+     *
+     * @param frequency One of once, daily, weekly, weekdays, monthly, custom.
+     * @param rule The cron expression or RRULE for {@code custom}; ignored otherwise.
+     * @param start The requested first fire time, in the user's time zone.
+     * @throws IllegalArgumentException If the frequency or rule is not supported.
+     */
+    public static RecurrenceRule of(String frequency, String rule, ZonedDateTime start) {
+        Kind kind = Kind.valueOf(frequency.trim().toUpperCase(Locale.ROOT));
+        if (kind != Kind.CUSTOM) {
+            return new RecurrenceRule(kind, start, null);
+        }
+        if (rule == null || rule.isBlank()) {
+            throw new IllegalArgumentException("A rule is required for custom frequency");
+        }
+        return new RecurrenceRule(kind, start, CronExpression.parse(toCron(rule.trim(), start)));
+    }
+
+    /**
+     * Whether the given custom rule can be parsed.
+     */
+    public static boolean isValid(String rule) {
+        try {
+            of("custom", rule, ZonedDateTime.now());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The first fire time: the requested start, moved forward to the first time the rule matches.
+     */
+    public ZonedDateTime first() {
+        return anchor;
+    }
+
+    /**
+     * The first fire time strictly after the given instant, or null if the post does not repeat.
+     */
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZonedDateTime local = after.withZoneSameInstant(anchor.getZone());
+        return switch (kind) {
+            case ONCE -> null;
+            case DAILY -> nextByPeriod(local, ChronoUnit.DAYS);
+            case WEEKLY -> nextByPeriod(local, ChronoUnit.WEEKS);
+            case MONTHLY -> nextByPeriod(local, ChronoUnit.MONTHS);
+            case WEEKDAYS -> {
+                ZonedDateTime candidate = nextByPeriod(local, ChronoUnit.DAYS);
+                while (isWeekend(candidate)) {
+                    candidate = nextByPeriod(candidate, ChronoUnit.DAYS);
+                }
+                yield candidate;
+            }
+            case CUSTOM -> cron.next(local);
+        };
+    }
+
+    /**
+     * anchor + k periods for the smallest k that lands after {@code after}. Adding date units to a
+     * ZonedDateTime keeps the local time, so the post stays at the same wall-clock time across DST.
+     */
+    private ZonedDateTime nextByPeriod(ZonedDateTime after, ChronoUnit unit) {
+        long k = Math.max(0, unit.between(anchor.toLocalDate(), after.toLocalDate()));
+        ZonedDateTime candidate = anchor.plus(k, unit);
+        while (!candidate.isAfter(after)) {
+            candidate = anchor.plus(++k, unit);
+        }
+        return candidate;
+    }
+
+    private static ZonedDateTime firstMatch(Kind kind, ZonedDateTime start, CronExpression cron) {
+        if (kind == Kind.CUSTOM) {
+            ZonedDateTime first = cron.next(start.minusSeconds(1));
+            if (first == null) {
+                throw new IllegalArgumentException("Rule never fires");
+            }
+            return first;
+        }
+        ZonedDateTime candidate = start;
+        while (isWeekend(candidate)) {
+            candidate = candidate.plusDays(1);
+        }
+        return candidate;
+    }
+
+    private static boolean isWeekend(ZonedDateTime dateTime) {
+        DayOfWeek day = dateTime.getDayOfWeek();
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * Returns the rule as a six-field cron expression. Plain cron is passed through (a five-field
+     * expression gets a leading seconds field); an RRULE is translated, taking unspecified fields from
+     * the start time the way RFC 5545 does.
+     */
+    private static String toCron(String rule, ZonedDateTime start) {
+        String body = rule.toUpperCase(Locale.ROOT).startsWith("RRULE:") ? rule.substring(6) : rule;
+        if (!body.toUpperCase(Locale.ROOT).contains("FREQ=")) {
+            return body.split("\\s+").length == 5 ? "0 " + body : body;
+        }
+
+        Map<String, String> parts = new LinkedHashMap<>();
+        for (String part : body.toUpperCase(Locale.ROOT).split(";")) {
+            String[] keyValue = part.split("=", 2);
+            if (keyValue.length != 2 || !RRULE_PARTS.contains(keyValue[0].trim())) {
+                throw new IllegalArgumentException("Unsupported RRULE part: " + part);
+            }
+            parts.put(keyValue[0].trim(), keyValue[1].trim());
+        }
+        String freq = parts.getOrDefault("FREQ", "");
+        int interval = parseInt(parts.getOrDefault("INTERVAL", "1"));
+        if (interval < 1 || (interval > 1 && !freq.equals("HOURLY") && !freq.equals("MINUTELY"))) {
+            throw new IllegalArgumentException("INTERVAL is only supported for HOURLY and MINUTELY rules");
+        }
+
+        String minutes;
+        String hours;
+        String daysOfMonth = parts.getOrDefault("BYMONTHDAY", "*");
+        String daysOfWeek = parts.containsKey("BYDAY") ? translateDays(parts.get("BYDAY")) : "*";
+        switch (freq) {
+            case "MINUTELY" -> {
+                minutes = stepped(parts.get("BYMINUTE"), 60, start.getMinute(), interval);
+                hours = parts.getOrDefault("BYHOUR", "*");
+            }
+            case "HOURLY" -> {
+                minutes = parts.getOrDefault("BYMINUTE", String.valueOf(start.getMinute()));
+                hours = stepped(parts.get("BYHOUR"), 24, start.getHour(), interval);
+            }
+            case "DAILY", "WEEKLY", "MONTHLY" -> {
+                minutes = parts.getOrDefault("BYMINUTE", String.valueOf(start.getMinute()));
+                hours = parts.getOrDefault("BYHOUR", String.valueOf(start.getHour()));
+                if (freq.equals("WEEKLY") && !parts.containsKey("BYDAY")) {
+                    daysOfWeek = start.getDayOfWeek().name().substring(0, 3);
+                }
+                if (freq.equals("MONTHLY") && !parts.containsKey("BYMONTHDAY") && !parts.containsKey("BYDAY")) {
+                    daysOfMonth = String.valueOf(start.getDayOfMonth());
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported RRULE FREQ: " + freq);
+        }
+        return start.getSecond() + " " + minutes + " " + hours + " " + daysOfMonth + " * " + daysOfWeek;
+    }
+
+    /**
+     * Values in {@code byList} (or all values below {@code range}) that are a whole number of
+     * intervals away from the start value.
+     */
+    private static String stepped(String byList, int range, int startValue, int interval) {
+        List<String> values = new ArrayList<>();
+        for (int value = 0; value < range; value++) {
+            if (Math.floorMod(value - startValue, interval) == 0
+                    && (byList == null || List.of(byList.split(",")).contains(String.valueOf(value)))) {
+                values.add(String.valueOf(value));
+            }
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Rule never fires");
+        }
+        return String.join(",", values);
+    }
+
+    private static String translateDays(String byDay) {
+        List<String> days = new ArrayList<>();
+        for (String day : byDay.split(",")) {
+            String cronDay = RRULE_DAYS.get(day.trim());
+            if (cronDay == null) {
+                throw new IllegalArgumentException("Unsupported BYDAY value: " + day);
+            }
+            days.add(cronDay);
+        }
+        return String.join(",", days);
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in RRULE: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.contentgenerator.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.contentgenerator.model.DeadLetterPost;
+import com.example.contentgenerator.publisher.PublishRequest;
+import com.example.contentgenerator.publisher.PublishResult;
+import com.example.contentgenerator.publisher.PublisherRegistry;
+import com.example.contentgenerator.repository.DeadLetterPostRepository;
+import com.example.contentgenerator.service.GenerationHistoryService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Retries failed scheduled dispatches with exponential backoff and jitter.
+ * Retries live in their own queue ordered by next attempt time and are drained by their own
+ * task, so they never add work to the main scheduling tick. A dispatch that still fails after
+ * the maximum number of attempts is moved to the persistent dead-letter store, from where it
+ * can be inspected and replayed.
+ * <p>
+ * A dispatch whose outcome is unknown (the platform timed out) is never retried automatically,
+ * since it may already be live and a retry would publish it twice; it is dead-lettered right away
+ * for someone to check the platform before replaying it. The retry queue itself is held in memory:
+ * on shutdown, pending retries are moved to the dead-letter store; after a crash they are lost.
+ */
+@Service
+public class RetryService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryService.class);
+
+    private final PriorityBlockingQueue<RetryItem> queue =
+            new PriorityBlockingQueue<>(64, Comparator.comparing(RetryItem::getNextAttemptAt));
+    private final PublisherRegistry publisherRegistry;
+    private final DeadLetterPostRepository deadLetterPostRepository;
+    private final GenerationHistoryService generationHistoryService;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryService(PublisherRegistry publisherRegistry, DeadLetterPostRepository deadLetterPostRepository,
+                        GenerationHistoryService generationHistoryService, MeterRegistry meterRegistry,
+                        ObservationRegistry observationRegistry,
+                        @Value("${scheduler.retry.max-attempts:5}") int maxAttempts,
+                        @Value("${scheduler.retry.base-delay:PT30S}") Duration baseDelay,
+                        @Value("${scheduler.retry.max-delay:PT30M}") Duration maxDelay) {
+        this.publisherRegistry = publisherRegistry;
+        this.deadLetterPostRepository = deadLetterPostRepository;
+        this.generationHistoryService = generationHistoryService;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        meterRegistry.gaugeCollectionSize("scheduler.retry.queued", Tags.empty(), queue);
+    }
+
+    /**
+     * Queues a failed dispatch to one platform for retry.
+     * If the request has an image, the caller hands over one reference to it, which is released
+     * once the retry succeeds or is dead-lettered.
+     *
+     * @param request The content and credentials that failed to publish.
+     * @param platform The platform that rejected it.
+     * @param error The failure message.
+     * @param postId The scheduled post the dispatch belongs to.
+     */
+    public void enqueue(PublishRequest request, String platform, String error, String postId) {
+        scheduleAttempt(new RetryItem(request, platform, 1, error, postId));
+    }
+
+    /**
+     * Records a dispatch whose outcome is unknown in the dead-letter store instead of retrying it.
+     * Takes over one image reference like {@link #enqueue}.
+     */
+    public void holdUnconfirmed(PublishRequest request, String platform, String error, String postId) {
+        meterRegistry.counter("scheduler.retry.unconfirmed").increment();
+        deadLetter(new RetryItem(request, platform, 1, unconfirmed(error), postId));
+    }
+
+    /**
+     * Moves a dead-lettered post back into the retry queue for an immediate attempt.
+     * The entry is deleted first and only the caller that deleted it queues the retry, so concurrent
+     * replays of one entry publish it once.
+     *
+     * @return false if the entry was already replayed.
+     * @throws IllegalArgumentException If the dispatch carried an image, which the dead-letter store does not keep.
+     */
+    public boolean replay(DeadLetterPost deadLetter) {
+        if (deadLetter.isImage()) {
+            throw new IllegalArgumentException("Image posts cannot be replayed; schedule the post again");
+        }
+        if (deadLetterPostRepository.deleteIfPresent(deadLetter.getId()) != 1) {
+            return false;
+        }
+        PublishRequest request = new PublishRequest(deadLetter.getUserId(), deadLetter.getContent(), null,
+                deadLetter.getPostTo(), deadLetter.getPageId());
+        RetryItem item = new RetryItem(request, deadLetter.getPlatform(), 0, deadLetter.getLastError(), null);
+        item.nextAttemptAt = Instant.now();
+        queue.add(item);
+        logger.info("Replaying dead-lettered post {} to {}", deadLetter.getId(), deadLetter.getPlatform());
+        return true;
+    }
+
+    /**
+     * Drains retries that are due. Runs independently of the main scheduling tick.
+     */
+    @Scheduled(fixedDelayString = "${scheduler.retry.poll-interval:PT5S}")
+    public void processRetries() {
+        Instant now = Instant.now();
+        List<RetryItem> due = new ArrayList<>();
+        RetryItem head;
+        while ((head = queue.peek()) != null && !head.getNextAttemptAt().isAfter(now)) {
+            RetryItem item = queue.poll();
+            if (item != null) {
+                due.add(item);
+            }
+        }
+
+        for (RetryItem item : due) {
+            PublishResult result = Observation.createNotStarted("scheduler.retry", observationRegistry)
+                    .lowCardinalityKeyValue("platform", item.platform)
+                    .highCardinalityKeyValue("attempt", String.valueOf(item.attempts + 1))
+                    .observe(() -> publisherRegistry.publishAll(List.of(item.platform), item.request).get(item.platform));
+            if (result != null) {
+                generationHistoryService.recordPublish(item.request.getUserId(), null, item.postId, item.request.getContent(), result);
+            }
+            if (result != null && result.isFailure()) {
+                item.lastError = result.getError();
+                item.attempts++;
+                scheduleAttempt(item);
+            } else if (result != null && result.isUnknown()) {
+                item.lastError = unconfirmed(result.getError());
+                item.attempts++;
+                meterRegistry.counter("scheduler.retry.unconfirmed").increment();
+                deadLetter(item);
+            } else {
+                releaseImage(item);
+                meterRegistry.counter("scheduler.retry.succeeded").increment();
+                logger.info("Retry of {} post succeeded after {} failed attempt(s)", item.platform, item.attempts);
+            }
+        }
+    }
+
+    private void scheduleAttempt(RetryItem item) {
+        if (item.attempts >= maxAttempts) {
+            deadLetter(item);
+            return;
+        }
+        item.nextAttemptAt = Instant.now().plusMillis(backoffMillis(item.attempts));
+        queue.add(item);
+        meterRegistry.counter("scheduler.retry.enqueued").increment();
+        logger.warn("Scheduled retry {} of {} post at {}: {}", item.attempts, item.platform, item.nextAttemptAt, item.lastError);
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half of the delay is fixed, half is random,
+     * so retries of posts that failed together spread out instead of hitting the platform in lockstep.
+     */
+    private long backoffMillis(int attempt) {
+        long exponential = baseDelayMillis << Math.min(attempt - 1, 20);
+        long delay = Math.min(maxDelayMillis, exponential);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void deadLetter(RetryItem item) {
+        // The dead-letter store keeps the text only; the flag stops a replay from posting it without the image
+        releaseImage(item);
+        DeadLetterPost deadLetter = new DeadLetterPost();
+        deadLetter.setUserId(item.request.getUserId());
+        deadLetter.setPlatform(item.platform);
+        deadLetter.setContent(item.request.getContent());
+        deadLetter.setPostTo(item.request.getPostTo());
+        deadLetter.setPageId(item.request.getPageId());
+        deadLetter.setImage(item.request.getImage() != null);
+        deadLetter.setAttempts(item.attempts);
+        deadLetter.setLastError(item.lastError);
+        deadLetter.setFailedAt(Instant.now());
+        try {
+            deadLetterPostRepository.save(deadLetter);
+            meterRegistry.counter("scheduler.retry.dead_lettered").increment();
+            logger.error("Post to {} for user {} moved to dead-letter store after {} attempts: {}",
+                    item.platform, item.request.getUserId(), item.attempts, item.lastError);
+        } catch (Exception e) {
+            logger.error("Failed to store dead-lettered post to {} for user {}", item.platform, item.request.getUserId(), e);
+        }
+    }
+
+    private static String unconfirmed(String error) {
+        return "Outcome unknown, not retried automatically; check the platform before replaying: " + error;
+    }
+
+    @Override
+    public void destroy() {
+        // The queue is not persistent; pending retries go to the dead-letter store rather than being lost
+        RetryItem item;
+        int moved = 0;
+        while ((item = queue.poll()) != null) {
+            item.lastError = "Pending retry at shutdown: " + item.lastError;
+            deadLetter(item);
+            moved++;
+        }
+        if (moved > 0) {
+            logger.info("Moved {} pending retries to the dead-letter store on shutdown", moved);
+        }
+    }
+
+    private static void releaseImage(RetryItem item) {
+        if (item.request.getImage() != null) {
+            item.request.getImage().release();
+        }
+    }
+
+    /**
+     * A pending retry of one dispatch to one platform.
+     */
+    private static class RetryItem {
+        private final PublishRequest request;
+        private final String platform;
+        private final String postId;
+        private int attempts;
+        private String lastError;
+        private Instant nextAttemptAt;
+
+        RetryItem(PublishRequest request, String platform, int attempts, String lastError, String postId) {
+            this.request = request;
+            this.platform = platform;
+            this.postId = postId;
+            this.attempts = attempts;
+            this.lastError = lastError;
+        }
+
+        Instant getNextAttemptAt() {
+            return nextAttemptAt;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.contentgenerator.scheduler;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.dto.ScheduledPostUpdate;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A post waiting in the scheduler. Instances are immutable; rescheduling replaces the instance.
+ * A post with deferred generation keeps its generation request and has no content until it is
+ * generated shortly before the fire time; each occurrence of a recurring one gets fresh content.
+ * An image post keeps its request as well, and its image is generated at each fire time.
+ */
+public class ScheduledPost {
+    private final String id;
+    private final String userId;
+    private final String content;
+    private final List<String> platforms;
+    private final String frequency;
+    private final String rule;
+    private final RecurrenceRule recurrence;
+    private final String accessToken;
+    private final String postTo;
+    private final String pageId;
+    private final ZonedDateTime dateTime;
+    private final GenerateRequest generationRequest;
+    private final GenerateRequest imageRequest;
+
+    ScheduledPost(String id, String userId, String content, List<String> platforms, String frequency, String rule,
+                  RecurrenceRule recurrence, String accessToken, String postTo, String pageId, ZonedDateTime dateTime,
+                  GenerateRequest generationRequest, GenerateRequest imageRequest) {
+        this.id = id;
+        this.userId = userId;
+        this.content = content;
+        this.platforms = List.copyOf(platforms);
+        this.frequency = frequency;
+        this.rule = rule;
+        this.recurrence = recurrence;
+        this.accessToken = accessToken;
+        this.postTo = postTo;
+        this.pageId = pageId;
+        this.dateTime = dateTime;
+        this.generationRequest = generationRequest;
+        this.imageRequest = imageRequest;
+    }
+
+    ScheduledPost withDateTime(ZonedDateTime next) {
+        String nextContent = generationRequest != null ? null : content;
+        return new ScheduledPost(id, userId, nextContent, platforms, frequency, rule, recurrence, accessToken, postTo, pageId,
+                next, generationRequest, imageRequest);
+    }
+
+    ScheduledPost withContent(String generated) {
+        return new ScheduledPost(id, userId, generated, platforms, frequency, rule, recurrence, accessToken, postTo, pageId,
+                dateTime, generationRequest, imageRequest);
+    }
+
+    /**
+     * Returns a copy with the non-null fields of the update applied.
+     * A new frequency, rule or dateTime restarts the recurrence from the (new) due time, in the post's time zone.
+     *
+     * @throws IllegalArgumentException If the resulting recurrence rule is not valid.
+     */
+    public ScheduledPost withChanges(ScheduledPostUpdate update) {
+        String newFrequency = update.getFrequency() != null ? update.getFrequency() : frequency;
+        String newRule = update.getRule() != null ? update.getRule() : rule;
+        RecurrenceRule newRecurrence = recurrence;
+        ZonedDateTime newDateTime = dateTime;
+        if (update.getFrequency() != null || update.getRule() != null || update.getDateTime() != null) {
+            ZonedDateTime start = update.getDateTime() != null
+                    ? update.getDateTime().withZoneSameInstant(dateTime.getZone()) : dateTime;
+            newRecurrence = RecurrenceRule.of(newFrequency, newRule, start);
+            newDateTime = newRecurrence.first();
+        }
+        return new ScheduledPost(id, userId,
+                update.getContent() != null ? update.getContent() : content,
+                update.getPlatforms() != null ? update.getPlatforms() : platforms,
+                newFrequency, newRule, newRecurrence, accessToken,
+                update.getPostTo() != null ? update.getPostTo() : postTo,
+                update.getPageId() != null ? update.getPageId() : pageId,
+                newDateTime, generationRequest, imageRequest);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public List<String> getPlatforms() {
+        return platforms;
+    }
+
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    @JsonIgnore
+    public RecurrenceRule getRecurrence() {
+        return recurrence;
+    }
+
+    @JsonIgnore
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getPostTo() {
+        return postTo;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public ZonedDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * True if the content is generated shortly before each fire time.
+     */
+    public boolean isDeferred() {
+        return generationRequest != null;
+    }
+
+    /**
+     * True if this occurrence still has to be generated before it can be published.
+     */
+    @JsonIgnore
+    public boolean needsContent() {
+        return generationRequest != null && content == null;
+    }
+
+    @JsonIgnore
+    public GenerateRequest getGenerationRequest() {
+        return generationRequest;
+    }
+
+    /**
+     * True if an image is generated and attached at each fire time.
+     */
+    public boolean isImage() {
+        return imageRequest != null;
+    }
+
+    @JsonIgnore
+    public GenerateRequest getImageRequest() {
+        return imageRequest;
+    }
+}
@@ -1,153 +1,599 @@
-
 package com.example.contentgenerator.scheduler;
 
-import java.time.ZoneOffset;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.example.contentgenerator.dto.GenerateRequest;
-import com.example.contentgenerator.util.LinkedInUtil;
+import com.example.contentgenerator.publisher.PublishRequest;
+import com.example.contentgenerator.publisher.PublishResult;
+import com.example.contentgenerator.publisher.PublisherRegistry;
+import com.example.contentgenerator.service.AiResponseParser;
+import com.example.contentgenerator.service.DuplicateContentIndex;
+import com.example.contentgenerator.service.GeminiAiService;
+import com.example.contentgenerator.service.GenerationHistoryService;
+import com.example.contentgenerator.service.GenerationPriority;
+import com.example.contentgenerator.service.GenerationResult;
+import com.example.contentgenerator.util.SpooledImage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 
 /**
  * Service for scheduling content posts.
- * Uses an in-memory map to store scheduled tasks.
+ * Posts are kept in an in-memory index ordered by due time, so each tick only looks at the posts
+ * that are actually due. A tick works within a time and post budget and leaves the rest for the
+ * next tick, so a backlog after downtime is worked off gradually instead of in one burst.
+ * <p>
+ * Every post has a stable id. Changes to a post are serialized per id, and the tick claims a due
+ * post by removing it from the index atomically, so a post is either changed before it fires or
+ * the change is refused while it is being published; it is never published half-changed.
  * In a production environment, a persistent task queue (e.g., using a database or message broker) is recommended.
  */
 @Service
 public class SchedulingService {
 
     private static final Logger logger = LoggerFactory.getLogger(SchedulingService.class);
-    private final Map<ZonedDateTime, List<ScheduledPost>> scheduledPosts = new ConcurrentHashMap<>();
-    private final LinkedInUtil linkedInUtil;
 
-    public SchedulingService(LinkedInUtil linkedInUtil) {
-        this.linkedInUtil = linkedInUtil;
+    /**
+     * What to do with a post whose due time passed more than {@code scheduler.catch-up.stale-after} ago.
+     */
+    enum CatchUpPolicy {
+        /** Publish every missed occurrence. */
+        FIRE,
+        /** Drop missed occurrences; recurring posts continue with their next future occurrence. */
+        SKIP,
+        /** Publish once for all missed occurrences; recurring posts continue with their next future occurrence. */
+        COMPRESS
+    }
+
+    private final ConcurrentSkipListMap<DueKey, ScheduledPost> dueIndex = new ConcurrentSkipListMap<>();
+    // Same entries as dueIndex, split per user, so calendar queries are a range scan over one user's posts
+    private final Map<String, ConcurrentSkipListMap<DueKey, ScheduledPost>> userIndex = new ConcurrentHashMap<>();
+    // Current version of every post, including one that is being published right now
+    private final Map<String, ScheduledPost> postsById = new ConcurrentHashMap<>();
+    // Near-duplicate regenerations spent on the current occurrence of each deferred post, by post id
+    private final Map<String, Regenerations> regenerations = new ConcurrentHashMap<>();
+    // Earliest next pre-warm attempt for deferred posts whose generation failed, by post id
+    private final Map<String, Backoff> generationBackoff = new ConcurrentHashMap<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final PublisherRegistry publisherRegistry;
+    private final RetryService retryService;
+    private final GeminiAiService geminiAiService;
+    private final AiResponseParser aiResponseParser;
+    private final GenerationHistoryService generationHistoryService;
+    private final DuplicateContentIndex duplicateContentIndex;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final Timer tickTimer;
+    private final int maxPostsPerTick;
+    private final long maxTickNanos;
+    private final CatchUpPolicy catchUpPolicy;
+    private final Duration staleAfter;
+
+    public SchedulingService(PublisherRegistry publisherRegistry, RetryService retryService,
+                             GeminiAiService geminiAiService, AiResponseParser aiResponseParser,
+                             GenerationHistoryService generationHistoryService, DuplicateContentIndex duplicateContentIndex,
+                             MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                             @Value("${scheduler.tick.max-posts:50}") int maxPostsPerTick,
+                             @Value("${scheduler.tick.max-duration:PT45S}") Duration maxTickDuration,
+                             @Value("${scheduler.catch-up.policy:compress}") String catchUpPolicy,
+                             @Value("${scheduler.catch-up.stale-after:PT5M}") Duration staleAfter) {
+        this.publisherRegistry = publisherRegistry;
+        this.retryService = retryService;
+        this.geminiAiService = geminiAiService;
+        this.aiResponseParser = aiResponseParser;
+        this.generationHistoryService = generationHistoryService;
+        this.duplicateContentIndex = duplicateContentIndex;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.maxPostsPerTick = maxPostsPerTick;
+        this.maxTickNanos = maxTickDuration.toNanos();
+        this.catchUpPolicy = CatchUpPolicy.valueOf(catchUpPolicy.trim().toUpperCase(Locale.ROOT));
+        this.staleAfter = staleAfter;
+        this.tickTimer = meterRegistry.timer("scheduler.tick.duration");
+        meterRegistry.gauge("scheduler.backlog", Tags.empty(), backlog);
+        meterRegistry.gaugeMapSize("scheduler.scheduled", Tags.empty(), dueIndex);
     }
 
     /**
      * Adds a post to the in-memory schedule.
      *
      * @param request The original generation request.
-     * @param content The content to be posted.
+     * @param content The content to be posted, or null to generate it from the request shortly before each fire time.
+     * @param accessToken The LinkedIn access token to publish with.
+     * @param userId The user who owns the post.
+     * @return The scheduled post, carrying its id.
+     * @throws IllegalArgumentException If the recurrence rule is not valid.
      */
-    public void schedulePost(GenerateRequest request, String content, String accessToken) {
-        ZonedDateTime dateTime = request.getSchedule().getDateTime();
+    public ScheduledPost schedulePost(GenerateRequest request, String content, String accessToken, String userId) {
+        // Recurrences are evaluated in the user's time zone so they keep their local time across DST changes
+        ZonedDateTime dateTime = request.getSchedule().getDateTime().withZoneSameInstant(userZone(request));
         String frequency = request.getSchedule().getFrequency();
+        String rule = request.getSchedule().getRule();
         String postTo = request.getSchedule().getPostTo();
         String pageId = request.getSchedule().getPageId();
-        ScheduledPost post = new ScheduledPost(content, request.getPlatform(), frequency, accessToken, postTo, pageId);
+        RecurrenceRule recurrence = RecurrenceRule.of(frequency, rule, dateTime);
+        ScheduledPost post = new ScheduledPost(UUID.randomUUID().toString(), userId, content, request.targetPlatforms(),
+                frequency, rule, recurrence, accessToken, postTo, pageId, recurrence.first(), content == null ? request : null,
+                request.isImage() ? request : null);
 
-        scheduledPosts.computeIfAbsent(dateTime, k -> new ArrayList<>()).add(post);
-        logger.info("Scheduled post for {} at {}", request.getPlatform(), dateTime);
+        postsById.put(post.getId(), post);
+        index(post);
+        logger.info("Scheduled post {} for {} at {}", post.getId(), request.targetPlatforms(), post.getDateTime());
+        return post;
     }
 
     /**
-     * Runs every minute to check for and execute scheduled posts.
-     * This is a simple scheduler; for high precision, a more robust solution might be needed.
+     * Returns one of the user's scheduled posts, or null if there is no such post.
      */
-    @Scheduled(cron = "0 * * * * *") // Runs at the start of every minute
-    public void processScheduledPosts() {
-        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
-        List<ZonedDateTime> timesToProcess = scheduledPosts.keySet().stream()
-                .filter(time -> !time.isAfter(now))
-                .toList();
+    public ScheduledPost findPost(String userId, String id) {
+        ScheduledPost post = postsById.get(id);
+        return post != null && post.getUserId().equals(userId) ? post : null;
+    }
 
-        for (ZonedDateTime scheduledTime : timesToProcess) {
-            List<ScheduledPost> posts = scheduledPosts.remove(scheduledTime);
-            if (posts != null) {
-                posts.forEach(post -> {
-                    // Post to the specified platform
-                    postToPlatform(post.getContent(), post.getPlatform(), post.getAccessToken(), post.getPostTo(), post.getPageId());
+    /**
+     * Cancels a scheduled post, including all future occurrences of a recurring post.
+     * If the post is being published at this moment, that publication completes but nothing further is scheduled.
+     *
+     * @return false if the user has no such post.
+     */
+    public boolean cancelPost(String userId, String id) {
+        boolean[] cancelled = new boolean[1];
+        postsById.computeIfPresent(id, (postId, current) -> {
+            if (!current.getUserId().equals(userId)) {
+                return current;
+            }
+            unindex(DueKey.of(current), current);
+            regenerations.remove(postId);
+            generationBackoff.remove(postId);
+            cancelled[0] = true;
+            return null;
+        });
+        if (cancelled[0]) {
+            logger.info("Cancelled scheduled post {}", id);
+        }
+        return cancelled[0];
+    }
 
-                    // Reschedule if recurring
-                    reschedulePost(post, scheduledTime);
-                });
+    /**
+     * Applies a change to a scheduled post, moving it in the index if its due time changed.
+     *
+     * @return The updated post, or null if the user has no such post.
+     * @throws IllegalStateException If the post is being published at this moment.
+     * @throws IllegalArgumentException If the change produces an invalid recurrence rule.
+     */
+    public ScheduledPost updatePost(String userId, String id, UnaryOperator<ScheduledPost> change) {
+        ScheduledPost[] updated = new ScheduledPost[1];
+        postsById.computeIfPresent(id, (postId, current) -> {
+            if (!current.getUserId().equals(userId)) {
+                return current;
+            }
+            ScheduledPost next = change.apply(current);
+            if (!unindex(DueKey.of(current), current)) {
+                throw new IllegalStateException("Post is being published; try again shortly");
             }
+            index(next);
+            updated[0] = next;
+            return next;
+        });
+        if (updated[0] != null) {
+            logger.info("Updated scheduled post {}, now due at {}", id, updated[0].getDateTime());
         }
+        return updated[0];
     }
 
-    private void postToPlatform(String content, String platform, String accessToken, String postTo, String pageId) {
-        // Modular design to support multiple platforms
-        if ("linkedin".equalsIgnoreCase(platform)) {
-            try {
-                logger.info("Processing scheduled task: Sending content to LinkedInUtil...");
-                if ("page".equalsIgnoreCase(postTo)) {
-                    linkedInUtil.postToPage(accessToken, content, pageId);
-                } else {
-                    linkedInUtil.post(accessToken, content);
+    /**
+     * Runs every minute to publish the posts that are due.
+     * Each tick stops after {@code scheduler.tick.max-posts} posts or {@code scheduler.tick.max-duration},
+     * whichever comes first; posts still due at that point stay in the index and are picked up by the next tick.
+     */
+    @Scheduled(cron = "${scheduler.tick.cron:0 * * * * *}")
+    public void processScheduledPosts() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        Instant staleBefore = now.minus(staleAfter);
+        int processed = 0;
+        try {
+            Map.Entry<DueKey, ScheduledPost> entry;
+            while ((entry = dueIndex.firstEntry()) != null && !entry.getKey().dueAt().isAfter(now)) {
+                if (processed >= maxPostsPerTick || System.nanoTime() - start >= maxTickNanos) {
+                    meterRegistry.counter("scheduler.tick.overruns").increment();
+                    logger.warn("Scheduler tick budget exhausted after {} post(s); carrying the rest to the next tick", processed);
+                    break;
                 }
-            } catch (Exception e) {
-                logger.error("Scheduled LinkedIn post failed", e);
+                // Another thread may have claimed the entry between firstEntry and here
+                if (!unindex(entry.getKey(), entry.getValue())) {
+                    continue;
+                }
+                processed++;
+                ScheduledPost post = entry.getValue();
+                boolean stale = entry.getKey().dueAt().isBefore(staleBefore);
+                Observation.createNotStarted("scheduler.dispatch", observationRegistry)
+                        .lowCardinalityKeyValue("stale", String.valueOf(stale))
+                        .highCardinalityKeyValue("post.id", post.getId())
+                        .observe(() -> dispatch(post, stale, now));
             }
+        } finally {
+            backlog.set(dueIndex.headMap(new DueKey(now.plusNanos(1), ""), false).size());
+            tickTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void dispatch(ScheduledPost post, boolean stale, Instant now) {
+        generationBackoff.remove(post.getId());
+        if (!stale || catchUpPolicy == CatchUpPolicy.FIRE) {
+            postToPlatforms(post);
+            reschedulePost(post, null);
+            return;
+        }
+        if (catchUpPolicy == CatchUpPolicy.COMPRESS) {
+            postToPlatforms(post);
         } else {
-            logger.warn("Platform '{}' not supported for posting.", platform);
+            logger.info("Skipping stale post for {} due at {}", post.getPlatforms(), post.getDateTime());
         }
+        meterRegistry.counter("scheduler.catch-up", "action", catchUpPolicy.name().toLowerCase(Locale.ROOT)).increment();
+        // Missed occurrences in between are not replayed
+        reschedulePost(post, now);
     }
 
-    private void reschedulePost(ScheduledPost post, ZonedDateTime lastExecutionTime) {
-        ZonedDateTime nextExecutionTime = null;
-        if ("daily".equalsIgnoreCase(post.getFrequency())) {
-            nextExecutionTime = lastExecutionTime.plusDays(1);
-        } else if ("weekly".equalsIgnoreCase(post.getFrequency())) {
-            nextExecutionTime = lastExecutionTime.plusWeeks(1);
+    private void postToPlatforms(ScheduledPost post) {
+        if (post.needsContent()) {
+            meterRegistry.counter("scheduler.prewarm.missed").increment();
+            logger.warn("Deferred post {} reached its fire time without content; generating inline", post.getId());
+            post = generateAtFireTime(post);
+            if (post == null) {
+                return;
+            }
         }
+        // Eager posts were checked when their content was generated and repeat the same text by design;
+        // deferred content is fresh each occurrence, so it is checked again here
+        // Regenerations share one budget per occurrence with pre-warming
+        if (post.isDeferred()) {
+            ScheduledPost candidate = post;
+            while (candidate != null && duplicateContentIndex.isDuplicate(post.getUserId(), candidate.getContent())) {
+                if (!tryRegenerate(post)) {
+                    candidate = null;
+                    break;
+                }
+                // The duplicate may have come from the generation cache; regenerate past it
+                geminiAiService.invalidateCached(post.getGenerationRequest(), post.getUserId());
+                candidate = generateAtFireTime(post);
+            }
+            regenerations.remove(post.getId());
+            if (candidate == null) {
+                meterRegistry.counter("dedup.rejected").increment();
+                logger.warn("Skipping occurrence of post {}: content is too similar to a recent post", post.getId());
+                return;
+            }
+            post = candidate;
+        }
+        SpooledImage image = null;
+        if (post.isImage()) {
+            try {
+                image = geminiAiService.generateImage(post.getImageRequest(), GenerationPriority.BATCH, post.getUserId());
+            } catch (Exception e) {
+                logger.error("Image generation for post {} failed; skipping this occurrence", post.getId(), e);
+                return;
+            }
+        }
+        logger.info("Processing scheduled task: publishing to {}...", post.getPlatforms());
+        PublishRequest request = new PublishRequest(post.getUserId(), post.getContent(), post.getAccessToken(), post.getPostTo(),
+                post.getPageId(), image);
+        Map<String, PublishResult> results;
+        try {
+            results = publisherRegistry.publishAll(post.getPlatforms(), request);
+            // Failed platforms are retried separately; a recurring post still moves on to its next occurrence
+            for (PublishResult result : results.values()) {
+                generationHistoryService.recordPublish(post.getUserId(), null, post.getId(), post.getContent(), result);
+                if (result.isFailure() || result.isUnknown()) {
+                    // Each queued retry holds its own reference to the image file
+                    if (image != null) {
+                        image.retain();
+                    }
+                    if (result.isFailure()) {
+                        logger.error("Scheduled {} post failed: {}", result.getPlatform(), result.getError());
+                        retryService.enqueue(request, result.getPlatform(), result.getError(), post.getId());
+                    } else {
+                        // It may be live already; retrying could publish it twice
+                        logger.error("Scheduled {} post has an unknown outcome: {}", result.getPlatform(), result.getError());
+                        retryService.holdUnconfirmed(request, result.getPlatform(), result.getError(), post.getId());
+                    }
+                }
+            }
+        } finally {
+            if (image != null) {
+                image.release();
+            }
+        }
+        if (results.values().stream().anyMatch(result -> result.getStatus() == PublishResult.Status.POSTED)) {
+            duplicateContentIndex.add(post.getUserId(), post.getContent());
+        }
+    }
 
-        if (nextExecutionTime != null) {
-            scheduledPosts.computeIfAbsent(nextExecutionTime, k -> new ArrayList<>()).add(post);
-            logger.info("Rescheduled post for {} at {}", post.getPlatform(), nextExecutionTime);
+    /**
+     * Generates content for a deferred post inline, which delays this tick by one Gemini call.
+     * Used when pre-warming did not reach the post in time or its content turned out to be a near-duplicate.
+     *
+     * @return The post with content, or null if generation failed and this occurrence is skipped.
+     */
+    private ScheduledPost generateAtFireTime(ScheduledPost post) {
+        GenerateRequest request = post.getGenerationRequest();
+        try {
+            GenerationResult generation = geminiAiService.generateContent(request, GenerationPriority.BATCH, post.getUserId());
+            String content = aiResponseParser.parse(generation.getText()).getContent();
+            if (!content.isBlank()) {
+                generationHistoryService.recordGeneration(post.getUserId(), null, post.getId(), request, generation, content, "SUCCESS", null);
+                return post.withContent(content);
+            }
+            generationHistoryService.recordGeneration(post.getUserId(), null, post.getId(), request, generation, content, "EMPTY", null);
+            logger.error("Generated content for deferred post {} was empty; skipping this occurrence", post.getId());
+        } catch (Exception e) {
+            generationHistoryService.recordGeneration(post.getUserId(), null, post.getId(), request, null, null, "FAILED", e.getMessage());
+            logger.error("Generation for deferred post {} failed; skipping this occurrence", post.getId(), e);
         }
+        return null;
     }
 
     /**
-     * Inner class to hold scheduled post data.
+     * Takes one near-duplicate regeneration from the budget of the post's current occurrence,
+     * {@code dedup.max-regenerations}, shared by pre-warming and the fire-time check.
+     *
+     * @return False if duplicates are rejected outright or the budget is used up.
      */
-    private static class ScheduledPost {
-        private final String content;
-        private final String platform;
-        private final String frequency;
-        private final String accessToken;
-        private final String postTo;
-        private final String pageId;
+    public boolean tryRegenerate(ScheduledPost post) {
+        if (duplicateContentIndex.getAction() != DuplicateContentIndex.Action.REGENERATE) {
+            return false;
+        }
+        Instant occurrence = post.getDateTime().toInstant();
+        Regenerations used = regenerations.compute(post.getId(), (id, current) ->
+                current == null || !current.occurrence.equals(occurrence)
+                        ? new Regenerations(occurrence, 1) : new Regenerations(occurrence, current.count + 1));
+        return used.count <= duplicateContentIndex.getMaxRegenerations();
+    }
 
-        ScheduledPost(String content, String platform, String frequency, String accessToken, String postTo, String pageId) {
-            this.content = content;
-            this.platform = platform;
-            this.frequency = frequency;
-            this.accessToken = accessToken;
-            this.postTo = postTo;
-            this.pageId = pageId;
+    /**
+     * Returns deferred posts due before {@code until} that have no content yet, earliest first.
+     * Posts backing off after a failed generation are left out until their next attempt time.
+     *
+     * @param cursor The {@code nextCursor} of the previous page, or null to start from the earliest post.
+     * @param now Instant against which backoffs are compared.
+     */
+    public PostPage findPendingGeneration(String cursor, Instant until, Instant now, int limit) {
+        NavigableMap<DueKey, ScheduledPost> range = dueIndex.headMap(new DueKey(until, ""), false);
+        if (cursor != null) {
+            range = range.tailMap(DueKey.parse(cursor), false);
         }
+        List<ScheduledPost> pending = new ArrayList<>();
+        for (Map.Entry<DueKey, ScheduledPost> entry : range.entrySet()) {
+            ScheduledPost post = entry.getValue();
+            if (!post.needsContent() || isBackingOff(post, now)) {
+                continue;
+            }
+            pending.add(post);
+            if (pending.size() == limit) {
+                return new PostPage(pending, entry.getKey().format());
+            }
+        }
+        return new PostPage(pending, null);
+    }
 
-        public String getContent() {
-            return content;
+    /**
+     * Holds a deferred post back from pre-warming after a failed generation. The delay starts at
+     * {@code initial} and doubles with each consecutive failure of the same occurrence, up to {@code max}.
+     *
+     * @return The earliest time of the next attempt.
+     */
+    public Instant backOffGeneration(ScheduledPost post, Instant now, Duration initial, Duration max) {
+        Instant occurrence = post.getDateTime().toInstant();
+        Backoff backoff = generationBackoff.compute(post.getId(), (id, current) -> {
+            int failures = current == null || !current.occurrence.equals(occurrence) ? 1 : current.failures + 1;
+            Duration delay = initial.multipliedBy(1L << Math.min(failures - 1, 16));
+            return new Backoff(occurrence, failures, now.plus(delay.compareTo(max) > 0 ? max : delay));
+        });
+        return backoff.retryAt;
+    }
+
+    private boolean isBackingOff(ScheduledPost post, Instant now) {
+        Backoff backoff = generationBackoff.get(post.getId());
+        return backoff != null && backoff.occurrence.equals(post.getDateTime().toInstant()) && backoff.retryAt.isAfter(now);
+    }
+
+    /**
+     * Stores generated content on a deferred post.
+     * Does nothing if the post was changed, cancelled or claimed by the tick since it was read.
+     *
+     * @return true if the content was stored.
+     */
+    public boolean attachContent(ScheduledPost post, String content) {
+        boolean[] attached = new boolean[1];
+        postsById.computeIfPresent(post.getId(), (id, current) -> {
+            if (current != post) {
+                return current;
+            }
+            ScheduledPost filled = post.withContent(content);
+            DueKey key = DueKey.of(post);
+            if (!dueIndex.replace(key, post, filled)) {
+                return current;
+            }
+            ConcurrentSkipListMap<DueKey, ScheduledPost> index = userIndex.get(post.getUserId());
+            if (index != null) {
+                index.replace(key, post, filled);
+            }
+            attached[0] = true;
+            generationBackoff.remove(id);
+            return filled;
+        });
+        return attached[0];
+    }
+
+    /**
+     * Re-inserts a recurring post at its next occurrence, or forgets a one-off post.
+     * Does nothing if the post was cancelled while it was being published.
+     *
+     * @param notBefore If set, occurrences up to this instant are skipped.
+     */
+    private void reschedulePost(ScheduledPost post, Instant notBefore) {
+        ZonedDateTime after = post.getDateTime();
+        if (notBefore != null && notBefore.isAfter(after.toInstant())) {
+            after = notBefore.atZone(after.getZone());
+        }
+
+        ZonedDateTime nextExecutionTime = post.getRecurrence().next(after);
+        postsById.computeIfPresent(post.getId(), (id, current) -> {
+            if (current != post || nextExecutionTime == null) {
+                return null;
+            }
+            ScheduledPost rescheduled = post.withDateTime(nextExecutionTime);
+            index(rescheduled);
+            return rescheduled;
+        });
+        if (nextExecutionTime != null) {
+            logger.info("Rescheduled post {} for {} at {}", post.getId(), post.getPlatforms(), nextExecutionTime);
+        }
+    }
+
+    private static ZoneId userZone(GenerateRequest request) {
+        if (request.getTimezone() != null && !request.getTimezone().isBlank()) {
+            try {
+                return ZoneId.of(request.getTimezone());
+            } catch (DateTimeException e) {
+                logger.warn("Invalid timezone '{}' provided. Using the schedule's offset.", request.getTimezone());
+            }
+        }
+        return request.getSchedule().getDateTime().getZone();
+    }
+
+    /**
+     * Lists a user's scheduled posts due in {@code [from, to)}, in due-time order.
+     * Cost is logarithmic in the user's schedule size plus the number of entries scanned.
+     *
+     * @param userId The owner of the posts.
+     * @param from Inclusive lower bound, or null for no bound.
+     * @param to Exclusive upper bound, or null for no bound.
+     * @param platform Only posts that target this platform, or null for all.
+     * @param frequency Only posts with this frequency, or null for all.
+     * @param cursor The {@code nextCursor} of the previous page, or null for the first page.
+     * @param limit Maximum number of posts to return.
+     * @throws IllegalArgumentException If the cursor is malformed.
+     */
+    public PostPage findPosts(String userId, Instant from, Instant to, String platform, String frequency,
+                              String cursor, int limit) {
+        ConcurrentSkipListMap<DueKey, ScheduledPost> index = userIndex.get(userId);
+        if (index == null) {
+            return new PostPage(List.of(), null);
         }
+        Map<DueKey, ScheduledPost> range = index;
+        if (cursor != null) {
+            range = index.tailMap(DueKey.parse(cursor), false);
+        } else if (from != null) {
+            range = index.tailMap(new DueKey(from, ""), true);
+        }
+        List<ScheduledPost> posts = new ArrayList<>();
+        DueKey last = null;
+        for (Map.Entry<DueKey, ScheduledPost> entry : range.entrySet()) {
+            if (to != null && !entry.getKey().dueAt().isBefore(to)) {
+                break;
+            }
+            ScheduledPost post = entry.getValue();
+            if (platform != null && post.getPlatforms().stream().noneMatch(platform::equalsIgnoreCase)) {
+                continue;
+            }
+            if (frequency != null && !frequency.equalsIgnoreCase(post.getFrequency())) {
+                continue;
+            }
+            if (posts.size() == limit) {
+                return new PostPage(posts, last.format());
+            }
+            posts.add(post);
+            last = entry.getKey();
+        }
+        return new PostPage(posts, null);
+    }
 
-        public String getPlatform() {
-            return platform;
+    private void index(ScheduledPost post) {
+        DueKey key = DueKey.of(post);
+        userIndex.computeIfAbsent(post.getUserId(), k -> new ConcurrentSkipListMap<>()).put(key, post);
+        dueIndex.put(key, post);
+    }
+
+    /**
+     * Removes a post from the indexes. Only one caller can succeed for a given entry, which is
+     * what lets the tick and concurrent edits agree on who owns the post.
+     */
+    private boolean unindex(DueKey key, ScheduledPost post) {
+        if (!dueIndex.remove(key, post)) {
+            return false;
         }
+        userIndex.computeIfPresent(post.getUserId(), (userId, index) -> {
+            index.remove(key);
+            return index.isEmpty() ? null : index;
+        });
+        return true;
+    }
 
-        public String getFrequency() {
-            return frequency;
+    /**
+     * One page of a calendar query. {@code nextCursor} is null on the last page.
+     */
+    public record PostPage(List<ScheduledPost> posts, String nextCursor) {
+    }
+
+    /**
+     * Position of a post in the due-time index. The post id keeps posts due at the same instant apart.
+     */
+    private record DueKey(Instant dueAt, String id) implements Comparable<DueKey> {
+        static DueKey of(ScheduledPost post) {
+            return new DueKey(post.getDateTime().toInstant(), post.getId());
         }
 
-        public String getAccessToken() {
-            return accessToken;
+        static DueKey parse(String cursor) {
+            String[] parts = cursor.split("_", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                return new DueKey(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])), parts[2]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
         }
 
-        public String getPostTo() {
-            return postTo;
+        String format() {
+            return dueAt.getEpochSecond() + "_" + dueAt.getNano() + "_" + id;
         }
 
-        public String getPageId() {
-            return pageId;
+        @Override
+        public int compareTo(DueKey other) {
+            int byTime = dueAt.compareTo(other.dueAt);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
         }
     }
+
+    private record Regenerations(Instant occurrence, int count) {
+    }
+
+    private record Backoff(Instant occurrence, int failures, Instant retryAt) {
+    }
 }
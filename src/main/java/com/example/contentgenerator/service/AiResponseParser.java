@@ -0,0 +1,126 @@
+package com.example.contentgenerator.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.contentgenerator.util.TolerantJsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Parses the JSON object returned by Gemini into response fields.
+ * Well-formed output is parsed strictly; truncated or prose-wrapped output is salvaged
+ * with {@link TolerantJsonParser}, keeping only the fields the prompt asks for.
+ * Outcomes are counted under {@code gemini.response.parse} so the salvage rate can be tracked.
+ */
+@Component
+public class AiResponseParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiResponseParser.class);
+    private static final List<String> KNOWN_FIELDS = List.of(
+            "headline", "content", "tagline", "hashtags", "mentions", "aiScore", "predictedEngagement");
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public AiResponseParser(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Parses the model output.
+     *
+     * @param generatedJson The cleaned text returned by Gemini.
+     * @return The parsed fields, flagged as partial when they had to be salvaged.
+     */
+    public ParsedContent parse(String generatedJson) {
+        try {
+            Map<String, Object> fields = objectMapper.readValue(generatedJson, new TypeReference<Map<String, Object>>() {});
+            count("strict");
+            return new ParsedContent(fields, false, false);
+        } catch (Exception e) {
+            logger.debug("Strict parse of AI response failed, attempting salvage: {}", e.getMessage());
+        }
+
+        TolerantJsonParser.Result salvaged = TolerantJsonParser.parse(generatedJson, objectMapper);
+        if (salvaged != null && salvaged.getFields().get("content") instanceof String) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (String field : KNOWN_FIELDS) {
+                if (salvaged.getFields().containsKey(field)) {
+                    fields.put(field, salvaged.getFields().get(field));
+                }
+            }
+            boolean partial = salvaged.isRepaired() || fields.size() < KNOWN_FIELDS.size();
+            count(partial ? "salvaged" : "unwrapped");
+            return new ParsedContent(fields, partial, false);
+        }
+
+        count("failed");
+        Map<String, Object> fallback = new LinkedHashMap<>();
+        fallback.put("content", generatedJson);
+        return new ParsedContent(fallback, false, true);
+    }
+
+    /**
+     * Checks that the model output is a well-formed JSON object with non-blank content, without
+     * salvaging and without counting a parse outcome.
+     */
+    public boolean isComplete(String generatedJson) {
+        try {
+            Map<String, Object> fields = objectMapper.readValue(generatedJson, new TypeReference<Map<String, Object>>() {});
+            return fields.get("content") instanceof String content && !content.isBlank();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("gemini.response.parse", "outcome", outcome).increment();
+    }
+
+    /**
+     * Fields parsed from a model response.
+     */
+    public static class ParsedContent {
+        private final Map<String, Object> fields;
+        private final boolean partial;
+        private final boolean failed;
+
+        ParsedContent(Map<String, Object> fields, boolean partial, boolean failed) {
+            this.fields = fields;
+            this.partial = partial;
+            this.failed = failed;
+        }
+
+        public Map<String, Object> getFields() {
+            return fields;
+        }
+
+        /**
+         * True if the fields were salvaged from truncated or incomplete output.
+         */
+        public boolean isPartial() {
+            return partial;
+        }
+
+        /**
+         * True if no JSON object could be recovered and the raw text was used as content.
+         */
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public String getContent() {
+            Object content = fields.get("content");
+            return content instanceof String ? (String) content : "";
+        }
+    }
+}
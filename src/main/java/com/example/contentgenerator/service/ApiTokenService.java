@@ -0,0 +1,124 @@
+package com.example.contentgenerator.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.stereotype.Service;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+
+/**
+ * Issues and verifies the signed tokens used by the stateless API.
+ * API tokens authenticate calls to {@code /api/marketing/**}; short-lived state tokens carry the
+ * user's identity through the LinkedIn OAuth redirect so the callback needs no session.
+ * Both are HMAC-signed with the shared {@code security.api-token.secret}, so any node can verify them.
+ */
+@Service
+public class ApiTokenService {
+
+    private static final String ISSUER = "content-generator";
+    private static final String PURPOSE_CLAIM = "purpose";
+    private static final String LINKEDIN_STATE = "linkedin-state";
+
+    private final JwtEncoder jwtEncoder;
+    private final NimbusJwtDecoder apiTokenDecoder;
+    private final NimbusJwtDecoder stateDecoder;
+    private final Duration tokenTtl;
+
+    public ApiTokenService(@Value("${security.api-token.secret}") String secret,
+                           @Value("${security.api-token.ttl:PT12H}") Duration tokenTtl) {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length < 32) {
+            throw new IllegalArgumentException("security.api-token.secret must be at least 32 bytes");
+        }
+        SecretKey key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        this.jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        this.apiTokenDecoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        this.apiTokenDecoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefaultWithIssuer(ISSUER), ApiTokenService::rejectPurposeTokens));
+        this.stateDecoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        this.stateDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+        this.tokenTtl = tokenTtl;
+    }
+
+    /**
+     * Decoder for API bearer tokens. Rejects special-purpose tokens such as OAuth state values.
+     */
+    public JwtDecoder apiTokenDecoder() {
+        return apiTokenDecoder;
+    }
+
+    /**
+     * Issues an API bearer token for the given user.
+     */
+    public String issueApiToken(String userId, String email) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .subject(userId)
+                .claim("email", email)
+                .issuedAt(now)
+                .expiresAt(now.plus(tokenTtl))
+                .build();
+        return encode(claims);
+    }
+
+    /**
+     * Issues an OAuth state value bound to the given user, valid for ten minutes.
+     */
+    public String issueLinkedInState(String userId) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .subject(userId)
+                .claim(PURPOSE_CLAIM, LINKEDIN_STATE)
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofMinutes(10)))
+                .build();
+        return encode(claims);
+    }
+
+    /**
+     * Verifies an OAuth state value and returns the user it was issued for.
+     *
+     * @throws JwtException If the state is invalid, expired or not a LinkedIn state token.
+     */
+    public String verifyLinkedInState(String state) {
+        Jwt jwt = stateDecoder.decode(state);
+        if (!LINKEDIN_STATE.equals(jwt.getClaimAsString(PURPOSE_CLAIM))) {
+            throw new JwtException("Not a LinkedIn state token");
+        }
+        return jwt.getSubject();
+    }
+
+    private static OAuth2TokenValidatorResult rejectPurposeTokens(Jwt jwt) {
+        if (jwt.hasClaim(PURPOSE_CLAIM)) {
+            return OAuth2TokenValidatorResult.failure(new OAuth2Error("invalid_token", "Token is not an API token", null));
+        }
+        return OAuth2TokenValidatorResult.success();
+    }
+
+    private String encode(JwtClaimsSet claims) {
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.contentgenerator.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.scheduler.ScheduledPost;
+import com.example.contentgenerator.scheduler.SchedulingService;
+import com.example.contentgenerator.util.BoundedLineReader;
+import com.example.contentgenerator.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Imports a content calendar into the scheduler.
+ * The upload is read one row at a time and processed in batches of {@code import.batch-size}:
+ * each row is validated like a {@code /generate} request with a schedule, content for the batch
+ * is generated concurrently on the BATCH lane (unless the row supplies its own or defers generation), the posts are
+ * scheduled, and one NDJSON result line per row is written and flushed before the next batch is read.
+ * Memory use is bounded by the batch size, not the size of the upload.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    // CSV columns that belong to the schedule block of a GenerateRequest
+    private static final Set<String> SCHEDULE_COLUMNS = Set.of("dateTime", "frequency", "rule", "generation");
+
+    private final GeminiAiService geminiAiService;
+    private final AiResponseParser aiResponseParser;
+    private final SchedulingService schedulingService;
+    private final GenerationHistoryService generationHistoryService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxRowLength;
+
+    public BulkImportService(GeminiAiService geminiAiService, AiResponseParser aiResponseParser,
+                             SchedulingService schedulingService, GenerationHistoryService generationHistoryService,
+                             Validator validator, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${import.batch-size:50}") int batchSize,
+                             @Value("${import.max-row-length:65536}") int maxRowLength) {
+        this.geminiAiService = geminiAiService;
+        this.aiResponseParser = aiResponseParser;
+        this.schedulingService = schedulingService;
+        this.generationHistoryService = generationHistoryService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxRowLength = maxRowLength;
+    }
+
+    /**
+     * Imports a CSV calendar. The first record is the header; columns are named after the
+     * {@code GenerateRequest} fields, plus {@code dateTime}, {@code frequency} and {@code rule} for the
+     * schedule and an optional {@code content} column with ready-made text. {@code platforms} is
+     * separated by semicolons.
+     *
+     * @return Counts per outcome, also written as the last line of the report.
+     */
+    public Map<String, Integer> importCsv(BufferedReader input, String userId, OutputStream report) throws IOException {
+        ImportRun run = new ImportRun(userId, report);
+        CsvReader csv = new CsvReader(input, maxRowLength);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return finish(run);
+        }
+        List<String> record;
+        while (true) {
+            try {
+                record = csv.readRecord();
+            } catch (IOException e) {
+                // A malformed record leaves the reader at an unknown position, so the import stops here
+                run.add(ImportRow.invalid(run.nextRowNumber(), Map.of("row", e.getMessage())));
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            run.add(parseRow(run.nextRowNumber(), toNode(header, record)));
+        }
+        return finish(run);
+    }
+
+    /**
+     * Imports an NDJSON calendar: one {@code /generate} request body per line, with a required
+     * {@code schedule} block and an optional {@code content} field with ready-made text.
+     *
+     * @return Counts per outcome, also written as the last line of the report.
+     */
+    public Map<String, Integer> importNdjson(BufferedReader input, String userId, OutputStream report) throws IOException {
+        ImportRun run = new ImportRun(userId, report);
+        // Over-long lines are skipped as they are read rather than buffered whole
+        BoundedLineReader lines = new BoundedLineReader(input, maxRowLength);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (lines.isTooLong()) {
+                run.add(ImportRow.invalid(run.nextRowNumber(), Map.of("row", "Row exceeds " + maxRowLength + " characters")));
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            long rowNumber = run.nextRowNumber();
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!(node instanceof ObjectNode objectNode)) {
+                    run.add(ImportRow.invalid(rowNumber, Map.of("row", "Row must be a JSON object")));
+                    continue;
+                }
+                run.add(parseRow(rowNumber, objectNode));
+            } catch (JsonProcessingException e) {
+                run.add(ImportRow.invalid(rowNumber, Map.of("row", "Malformed JSON: " + e.getOriginalMessage())));
+            }
+        }
+        return finish(run);
+    }
+
+    private ObjectNode toNode(List<String> header, List<String> record) {
+        ObjectNode node = objectMapper.createObjectNode();
+        ObjectNode schedule = objectMapper.createObjectNode();
+        for (int i = 0; i < header.size() && i < record.size(); i++) {
+            String column = header.get(i).trim();
+            String value = record.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (SCHEDULE_COLUMNS.contains(column)) {
+                schedule.put(column, value);
+            } else if (column.equals("platforms")) {
+                ArrayNode platforms = node.putArray("platforms");
+                for (String platform : value.split(";")) {
+                    if (!platform.isBlank()) {
+                        platforms.add(platform.trim());
+                    }
+                }
+            } else {
+                node.put(column, value);
+                // A CSV row has one postTo/pageId; it applies to the schedule as well
+                if (column.equals("postTo") || column.equals("pageId")) {
+                    schedule.put(column, value);
+                }
+            }
+        }
+        if (!schedule.isEmpty()) {
+            node.set("schedule", schedule);
+        }
+        return node;
+    }
+
+    private ImportRow parseRow(long rowNumber, ObjectNode node) {
+        JsonNode content = node.remove("content");
+        GenerateRequest request;
+        try {
+            request = objectMapper.treeToValue(node, GenerateRequest.class);
+        } catch (JsonProcessingException e) {
+            return ImportRow.invalid(rowNumber, Map.of("row", e.getOriginalMessage()));
+        }
+
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (ConstraintViolation<GenerateRequest> violation : validator.validate(request)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        if (request.getSchedule() == null) {
+            errors.put("schedule", "A schedule is required for imported rows.");
+        }
+        if (!errors.isEmpty()) {
+            return ImportRow.invalid(rowNumber, errors);
+        }
+        return new ImportRow(rowNumber, request, content != null && !content.isNull() ? content.asText() : null, null);
+    }
+
+    private Map<String, Integer> finish(ImportRun run) throws IOException {
+        run.flushBatch();
+        Map<String, Integer> summary = new LinkedHashMap<>();
+        summary.put("rows", run.rows);
+        summary.put("scheduled", run.scheduled);
+        summary.put("invalid", run.invalid);
+        summary.put("failed", run.failed);
+        run.write(Map.of("summary", summary));
+        run.report.flush();
+        logger.info("Imported calendar for user {}: {}", run.userId, summary);
+        return summary;
+    }
+
+    /**
+     * State of one import: the current batch and running counts.
+     */
+    private final class ImportRun {
+        private final String userId;
+        private final OutputStream report;
+        private final List<ImportRow> batch = new ArrayList<>();
+        private int rows;
+        private int scheduled;
+        private int invalid;
+        private int failed;
+
+        ImportRun(String userId, OutputStream report) {
+            this.userId = userId;
+            this.report = report;
+        }
+
+        long nextRowNumber() {
+            return ++rows;
+        }
+
+        void add(ImportRow row) throws IOException {
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flushBatch();
+            }
+        }
+
+        void flushBatch() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            // Start all generations first so the batch is generated concurrently, then collect in row order
+            for (ImportRow row : batch) {
+                if (row.request != null && row.content == null && !row.request.getSchedule().isDeferred()) {
+                    row.generation = geminiAiService.submitGeneration(row.request, GenerationPriority.BATCH, userId);
+                }
+            }
+            for (ImportRow row : batch) {
+                write(process(row));
+            }
+            batch.clear();
+            report.flush();
+        }
+
+        private Map<String, Object> process(ImportRow row) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("row", row.rowNumber);
+            if (row.errors != null) {
+                return outcome(result, "INVALID", "errors", row.errors);
+            }
+            String content = row.content;
+            boolean deferred = content == null && row.request.getSchedule().isDeferred();
+            GenerationResult generation = null;
+            if (content == null && !deferred) {
+                try {
+                    generation = row.generation.join();
+                    content = aiResponseParser.parse(generation.getText()).getContent();
+                } catch (Exception e) {
+                    logger.warn("Generation for import row {} failed", row.rowNumber, e);
+                    generationHistoryService.recordGeneration(userId, null, null, row.request, null, null, "FAILED", e.getMessage());
+                    return outcome(result, "FAILED", "error", "Content generation failed");
+                }
+            }
+            if (!deferred && content.isBlank()) {
+                generationHistoryService.recordGeneration(userId, null, null, row.request, generation, content, "EMPTY", null);
+                return outcome(result, "FAILED", "error", "Generated content was empty");
+            }
+            try {
+                // No token is stored with imported posts; publishers resolve the user's token at publish time
+                ScheduledPost post = schedulingService.schedulePost(row.request, content, null, userId);
+                if (generation != null) {
+                    generationHistoryService.recordGeneration(userId, null, post.getId(), row.request, generation, content, "SUCCESS", null);
+                }
+                result.put("scheduledPostId", post.getId());
+                result.put("dateTime", post.getDateTime());
+                return outcome(result, "SCHEDULED", null, null);
+            } catch (IllegalArgumentException e) {
+                return outcome(result, "INVALID", "errors", Map.of("schedule", e.getMessage()));
+            }
+        }
+
+        private Map<String, Object> outcome(Map<String, Object> result, String status, String key, Object value) {
+            switch (status) {
+                case "SCHEDULED" -> scheduled++;
+                case "INVALID" -> invalid++;
+                default -> failed++;
+            }
+            meterRegistry.counter("import.rows", "status", status.toLowerCase(Locale.ROOT)).increment();
+            result.put("status", status);
+            if (key != null) {
+                result.put(key, value);
+            }
+            return result;
+        }
+
+        void write(Map<String, Object> line) throws IOException {
+            report.write(objectMapper.writeValueAsBytes(line));
+            report.write('\n');
+        }
+    }
+
+    /**
+     * One row of the upload: a valid request (with optional ready-made content) or its validation errors.
+     */
+    private static final class ImportRow {
+        private final long rowNumber;
+        private final GenerateRequest request;
+        private final String content;
+        private final Map<String, String> errors;
+        private CompletableFuture<GenerationResult> generation;
+
+        ImportRow(long rowNumber, GenerateRequest request, String content, Map<String, String> errors) {
+            this.rowNumber = rowNumber;
+            this.request = request;
+            this.content = content;
+            this.errors = errors;
+        }
+
+        static ImportRow invalid(long rowNumber, Map<String, String> errors) {
+            return new ImportRow(rowNumber, null, null, errors);
+        }
+    }
+}
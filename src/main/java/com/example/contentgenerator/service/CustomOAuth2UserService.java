@@ -19,12 +19,13 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
-        logger.info("Processing user request: {}", userRequest);
+        // The request carries the provider access token, so only the registration id is logged
+        String provider = userRequest.getClientRegistration().getRegistrationId();
+        logger.debug("Loading OAuth2 user from {}", provider);
         OAuth2User oauth2User = super.loadUser(userRequest);
         String email = oauth2User.getAttribute("email");
         String name = oauth2User.getAttribute("name");
-        String provider = userRequest.getClientRegistration().getRegistrationId();
-        logger.info("User email: {}, name: {}, provider: {}", email, name, provider);
+        logger.info("OAuth2 login via {}", provider);
         userService.processOAuthPostLogin(email, name, provider);
         return oauth2User;
     }
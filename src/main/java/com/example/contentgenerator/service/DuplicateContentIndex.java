@@ -0,0 +1,225 @@
+package com.example.contentgenerator.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.contentgenerator.util.SimHash;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-account index of SimHash fingerprints of recently published content, used to catch
+ * near-duplicate posts before they go out.
+ * <p>
+ * Each account keeps its last {@code dedup.window} fingerprints in a ring of longs. Fingerprints are
+ * split into {@code dedup.max-distance + 1} bands; two fingerprints within the maximum distance must
+ * agree exactly on at least one band, so a lookup only compares against fingerprints that share a band
+ * value instead of scanning the window. Published fingerprints are persisted with the publish events in
+ * {@code generation_history}, and an account's window is loaded from there the first time it is checked.
+ */
+@Service
+public class DuplicateContentIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateContentIndex.class);
+
+    private static final String LOAD_SQL = "SELECT simhash FROM generation_history WHERE user_id = ? "
+            + "AND event_type = 'PUBLISHED' AND simhash IS NOT NULL ORDER BY created_at DESC LIMIT ?";
+
+    /**
+     * What to do with a near-duplicate.
+     */
+    public enum Action {
+        REJECT, REGENERATE
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Action action;
+    private final int maxDistance;
+    private final int maxRegenerations;
+    private final int window;
+    private final int bands;
+    private final int bandBits;
+    private final Map<String, AccountIndex> accounts;
+
+    public DuplicateContentIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 @Value("${dedup.enabled:true}") boolean enabled,
+                                 @Value("${dedup.action:regenerate}") String action,
+                                 @Value("${dedup.max-distance:3}") int maxDistance,
+                                 @Value("${dedup.max-regenerations:2}") int maxRegenerations,
+                                 @Value("${dedup.window:200}") int window,
+                                 @Value("${dedup.max-accounts:10000}") int maxAccounts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.action = Action.valueOf(action.trim().toUpperCase(Locale.ROOT));
+        this.maxDistance = maxDistance;
+        this.maxRegenerations = maxRegenerations;
+        this.window = window;
+        this.bands = maxDistance + 1;
+        this.bandBits = 64 / bands;
+        // Least recently checked accounts are dropped and reloaded from the database when seen again
+        this.accounts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AccountIndex> eldest) {
+                return size() > maxAccounts;
+            }
+        };
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public int getMaxRegenerations() {
+        return maxRegenerations;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the content is within {@code dedup.max-distance} bits of something the account published recently.
+     */
+    public boolean isDuplicate(String userId, String content) {
+        if (!enabled || userId == null || content == null || content.isBlank()) {
+            return false;
+        }
+        long fingerprint = SimHash.fingerprint(content);
+        boolean duplicate = account(userId).contains(fingerprint);
+        if (duplicate) {
+            meterRegistry.counter("dedup.duplicates").increment();
+        }
+        return duplicate;
+    }
+
+    /**
+     * Adds published content to the account's window, evicting the oldest entry when it is full.
+     */
+    public void add(String userId, String content) {
+        if (!enabled || userId == null || content == null || content.isBlank()) {
+            return;
+        }
+        account(userId).add(SimHash.fingerprint(content));
+    }
+
+    private AccountIndex account(String userId) {
+        AccountIndex index;
+        synchronized (accounts) {
+            index = accounts.get(userId);
+        }
+        if (index != null) {
+            return index;
+        }
+        AccountIndex loaded = new AccountIndex();
+        try {
+            List<Long> fingerprints = jdbcTemplate.queryForList(LOAD_SQL, Long.class, userId, window);
+            // Oldest first, so the ring ends up in publish order
+            for (int i = fingerprints.size() - 1; i >= 0; i--) {
+                loaded.add(fingerprints.get(i));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not load content fingerprints for user {}; starting with an empty window", userId, e);
+        }
+        synchronized (accounts) {
+            AccountIndex existing = accounts.putIfAbsent(userId, loaded);
+            return existing != null ? existing : loaded;
+        }
+    }
+
+    /**
+     * Fingerprint window of one account with its band lookup tables.
+     */
+    private final class AccountIndex {
+        private final long[] ring = new long[window];
+        private int size;
+        private int next;
+        // (band index, band value) -> ring slots holding a fingerprint with that band value
+        private final Map<Long, int[]> bandSlots = new HashMap<>();
+
+        synchronized boolean contains(long fingerprint) {
+            for (int band = 0; band < bands; band++) {
+                int[] slots = bandSlots.get(bandKey(band, fingerprint));
+                if (slots == null) {
+                    continue;
+                }
+                for (int slot : slots) {
+                    if (SimHash.distance(ring[slot], fingerprint) <= maxDistance) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        synchronized void add(long fingerprint) {
+            if (size == ring.length) {
+                long evicted = ring[next];
+                for (int band = 0; band < bands; band++) {
+                    removeSlot(bandKey(band, evicted), next);
+                }
+            } else {
+                size++;
+            }
+            ring[next] = fingerprint;
+            for (int band = 0; band < bands; band++) {
+                bandSlots.merge(bandKey(band, fingerprint), new int[] {next}, DuplicateContentIndex::append);
+            }
+            next = (next + 1) % ring.length;
+        }
+
+        private void removeSlot(long key, int slot) {
+            int[] slots = bandSlots.get(key);
+            if (slots == null) {
+                return;
+            }
+            int position = -1;
+            for (int i = 0; i < slots.length && position < 0; i++) {
+                if (slots[i] == slot) {
+                    position = i;
+                }
+            }
+            if (position < 0) {
+                return;
+            }
+            if (slots.length == 1) {
+                bandSlots.remove(key);
+                return;
+            }
+            int[] remaining = new int[slots.length - 1];
+            System.arraycopy(slots, 0, remaining, 0, position);
+            System.arraycopy(slots, position + 1, remaining, position, slots.length - position - 1);
+            bandSlots.put(key, remaining);
+        }
+
+        private long bandKey(int band, long fingerprint) {
+            // The last band takes the leftover bits when 64 is not divisible by the band count
+            int shift = band * bandBits;
+            int bits = band == bands - 1 ? 64 - shift : bandBits;
+            long mask = bits == 64 ? -1L : (1L << bits) - 1;
+            return ((long) band << 58) ^ ((fingerprint >>> shift) & mask);
+        }
+    }
+
+    private static int[] append(int[] existing, int[] added) {
+        int[] merged = new int[existing.length + added.length];
+        System.arraycopy(existing, 0, merged, 0, existing.length);
+        System.arraycopy(added, 0, merged, existing.length, added.length);
+        return merged;
+    }
+}
@@ -1,13 +1,36 @@
 package com.example.contentgenerator.service;
 
 import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.util.SpooledImage;
 import com.google.genai.Client;
+import com.google.genai.types.Candidate;
+import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.GenerateContentResponseUsageMetadata;
+import com.google.genai.types.GenerateImagesConfig;
+import com.google.genai.types.GenerateImagesResponse;
+import com.google.genai.types.GeneratedImage;
+import com.google.genai.types.Image;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 /**
  * Service to interact with the Gemini AI API.
  * Builds the prompt and sends the request to generate content.
@@ -16,64 +39,325 @@ import org.springframework.stereotype.Service;
 public class GeminiAiService {
 
     private static final Logger logger = LoggerFactory.getLogger(GeminiAiService.class);
-    private final Client client;
+    private final String apiKey;
+    private volatile Client client;
+    private final ModelRouter modelRouter;
+    private final PromptBuilder promptBuilder;
+    private final GenerationCache generationCache;
+    private final AiResponseParser aiResponseParser;
+    private final GeminiWorkScheduler workScheduler;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final String imageModel;
+    private final Path imageSpoolDir;
+    private final Map<GenerationPriority, Duration> timeouts;
 
-    @Value("${gemini.model.name}")
-    private String modelName;
+    public GeminiAiService(@Value("${gemini.api.key}") String apiKey, ModelRouter modelRouter, PromptBuilder promptBuilder,
+                           GenerationCache generationCache, AiResponseParser aiResponseParser,
+                           GeminiWorkScheduler workScheduler, MeterRegistry meterRegistry,
+                           ObservationRegistry observationRegistry,
+                           @Value("${gemini.image.model:imagen-3.0-generate-002}") String imageModel,
+                           @Value("${gemini.image.spool-dir:${java.io.tmpdir}/contentgenerator-images}") String imageSpoolDir,
+                           @Value("${gemini.timeout:interactive=PT60S,batch=PT30S,background=PT10M}") String timeouts) {
+        // The Google Gen AI Client is created on first use to keep it off the startup path
+        this.apiKey = apiKey;
+        this.modelRouter = modelRouter;
+        this.promptBuilder = promptBuilder;
+        this.generationCache = generationCache;
+        this.aiResponseParser = aiResponseParser;
+        this.workScheduler = workScheduler;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.imageModel = imageModel;
+        this.imageSpoolDir = Path.of(imageSpoolDir);
+        this.timeouts = parseTimeouts(timeouts);
+    }
 
-    public GeminiAiService(@Value("${gemini.api.key}") String apiKey) {
-        // Initialize the Google Gen AI Client
-        this.client = Client.builder().apiKey(apiKey).build();
+    private static Map<GenerationPriority, Duration> parseTimeouts(String timeouts) {
+        Map<GenerationPriority, Duration> parsed = new EnumMap<>(GenerationPriority.class);
+        for (String entry : timeouts.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid gemini.timeout entry: '" + entry.trim() + "'");
+            }
+            parsed.put(GenerationPriority.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Duration.parse(parts[1].trim()));
+        }
+        for (GenerationPriority priority : GenerationPriority.values()) {
+            if (!parsed.containsKey(priority)) {
+                throw new IllegalArgumentException("gemini.timeout has no entry for " + priority.name().toLowerCase(Locale.ROOT));
+            }
+        }
+        return parsed;
     }
 
     /**
-     * Calls the Gemini API to generate content.
+     * Calls the Gemini API to generate content through the {@link GeminiWorkScheduler}.
+     * The model is chosen by the {@link ModelRouter}; if the routed model fails,
+     * the call is retried once on the fallback model. Results are served from the
+     * {@link GenerationCache} when the same request was generated recently.
+     * The caller waits at most the lane's {@code gemini.timeout}, time in the work queue included.
      *
      * @param request The request containing details for content generation.
-     * @return The generated content as a string.
+     * @param priority The scheduling lane for the call.
+     * @param tenant The tenant the call is charged to for fair sharing.
+     * @return The generated content together with the model that produced it.
+     */
+    public GenerationResult generateContent(GenerateRequest request, GenerationPriority priority, String tenant) {
+        return generateContent(request, priority, tenant, false);
+    }
+
+    /**
+     * Like {@link #generateContent(GenerateRequest, GenerationPriority, String)}, optionally skipping the
+     * cached result so Gemini is called again; the fresh result replaces the cached one.
+     *
+     * @param regenerate Whether to bypass the cache, for an explicit regeneration.
+     */
+    public GenerationResult generateContent(GenerateRequest request, GenerationPriority priority, String tenant,
+                                            boolean regenerate) {
+        // Covers the wait in the work queue as well as the calls themselves
+        Duration timeout = timeouts.get(priority);
+        return requestObservation(request, priority).observe(() -> {
+            TextCall call = plan(request);
+            Supplier<CompletableFuture<GenerationResult>> loader = () ->
+                    CompletableFuture.completedFuture(workScheduler.execute(priority, tenant, () -> generateWithFallback(call), timeout));
+            CompletableFuture<GenerationResult> result = regenerate
+                    ? generationCache.refresh(cacheKey(tenant, call), priority, loader, this::isCacheable)
+                    : generationCache.get(cacheKey(tenant, call), priority, loader, this::isCacheable);
+            // A fill started by another caller is waited for no longer than our own call would be
+            return GeminiWorkScheduler.await(result, timeout);
+        });
+    }
+
+    /**
+     * Queues a generation on the {@link GeminiWorkScheduler} without waiting for it, so a caller
+     * can have several generations in flight at once.
+     *
+     * @return A future completed with the generated content, or exceptionally if generation failed.
+     */
+    public CompletableFuture<GenerationResult> submitGeneration(GenerateRequest request, GenerationPriority priority, String tenant) {
+        Observation observation = requestObservation(request, priority).start();
+        CompletableFuture<GenerationResult> future;
+        // The work queue carries the open scope over to the worker, so the calls nest under this observation
+        try (Observation.Scope scope = observation.openScope()) {
+            TextCall call = plan(request);
+            future = generationCache.get(cacheKey(tenant, call), priority,
+                    () -> workScheduler.submit(priority, tenant, () -> generateWithFallback(call)), this::isCacheable);
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            if (error != null) {
+                observation.error(error);
+            }
+            observation.stop();
+        });
+    }
+
+    /**
+     * Drops the tenant's cached result for the request, so the next generation calls Gemini again.
+     * Used when the cached content turned out to repeat a recent post.
      */
-    public String generateContent(GenerateRequest request) {
-        String prompt = buildPrompt(request);
+    public void invalidateCached(GenerateRequest request, String tenant) {
+        generationCache.invalidate(cacheKey(tenant, plan(request)));
+    }
+
+    private Observation requestObservation(GenerateRequest request, GenerationPriority priority) {
+        return Observation.createNotStarted("gemini.request", observationRegistry)
+                .lowCardinalityKeyValue("lane", priority.name().toLowerCase())
+                .lowCardinalityKeyValue("content.type", String.valueOf(request.getContentType()));
+    }
 
-        logger.info("Sending request to Gemini API using model: {}", modelName);
+    /**
+     * Generates an image for the request through the {@link GeminiWorkScheduler} and spools it to a
+     * temp file right away, so only the upload reads it back, streaming from disk.
+     * The caller waits at most the lane's {@code gemini.timeout}.
+     *
+     * @return The spooled image; the caller holds its only reference and must release it.
+     */
+    public SpooledImage generateImage(GenerateRequest request, GenerationPriority priority, String tenant) {
+        return requestObservation(request, priority)
+                .observe(() -> workScheduler.execute(priority, tenant, () -> callImageModel(promptBuilder.buildImagePrompt(request)),
+                        timeouts.get(priority)));
+    }
+
+    private SpooledImage callImageModel(String prompt) {
+        logger.info("Sending image request to Gemini API using model: {}", imageModel);
+        long start = System.nanoTime();
+        Observation observation = callObservation(imageModel, "image").start();
+        try (Observation.Scope scope = observation.openScope()) {
+            GenerateImagesConfig config = GenerateImagesConfig.builder()
+                    .numberOfImages(1)
+                    .outputMimeType("image/png")
+                    .build();
+            GenerateImagesResponse response = client().models.generateImages(imageModel, prompt, config);
+            Image image = response.generatedImages().orElse(List.of()).stream()
+                    .findFirst()
+                    .flatMap(GeneratedImage::image)
+                    .orElseThrow(() -> new IllegalStateException("Gemini returned no image"));
+            byte[] bytes = image.imageBytes().orElseThrow(() -> new IllegalStateException("Gemini returned an empty image"));
+            // The SDK hands the image over as one array; it becomes garbage as soon as it is on disk
+            SpooledImage spooled = SpooledImage.spool(bytes, image.mimeType().orElse("image/png"), imageSpoolDir);
+            record(imageModel, "success", elapsedMillis(start));
+            return spooled;
+        } catch (Exception e) {
+            record(imageModel, "error", elapsedMillis(start));
+            observation.error(e);
+            logger.error("Error during Gemini image generation", e);
+            throw new RuntimeException("Failed to generate image", e);
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private Observation callObservation(String model, String kind) {
+        return Observation.createNotStarted("gemini.call", observationRegistry)
+                .lowCardinalityKeyValue("model", model)
+                .lowCardinalityKeyValue("kind", kind);
+    }
+
+    /**
+     * Builds the prompt and picks model and output settings for a text generation.
+     */
+    private TextCall plan(GenerateRequest request) {
+        String prompt = Observation.createNotStarted("gemini.prompt", observationRegistry)
+                .observe(() -> buildPrompt(request));
+        String model = modelRouter.route(request.getContentType(), request.getPlatform());
+        return new TextCall(model, prompt, promptBuilder.configFor(request.getContentType()));
+    }
+
+    private byte[] cacheKey(String tenant, TextCall call) {
+        return generationCache.key(tenant, call.model(), call.prompt(), call.config());
+    }
+
+    /**
+     * Only answers Gemini finished on its own and that hold a complete JSON object are worth caching;
+     * a response cut off at the token limit would otherwise be served again until it expires.
+     */
+    private boolean isCacheable(GenerationResult result) {
+        return "STOP".equals(result.getFinishReason()) && aiResponseParser.isComplete(result.getText());
+    }
+
+    private GenerationResult generateWithFallback(TextCall call) {
+        String model = call.model();
+        String prompt = call.prompt();
+        GenerateContentConfig config = call.config();
 
         try {
-            GenerateContentResponse response = client.models.generateContent(modelName, prompt, null);
+            return callModel(model, prompt, config);
+        } catch (Exception e) {
+            String fallback = modelRouter.fallbackFor(model);
+            if (fallback == null) {
+                logger.error("Error during Gemini API call", e);
+                throw new RuntimeException("Failed to call Gemini API", e);
+            }
+            logger.warn("Gemini call on model {} failed, retrying on fallback model {}", model, fallback, e);
+            try {
+                return callModel(fallback, prompt, config);
+            } catch (Exception fallbackError) {
+                logger.error("Error during Gemini API call", fallbackError);
+                throw new RuntimeException("Failed to call Gemini API", fallbackError);
+            }
+        }
+    }
+
+    private GenerationResult callModel(String model, String prompt, GenerateContentConfig config) {
+        logger.info("Sending request to Gemini API using model: {}", model);
+        long start = System.nanoTime();
+        Observation observation = callObservation(model, "text").start();
+        try (Observation.Scope scope = observation.openScope()) {
+            GenerateContentResponse response = client().models.generateContent(model, prompt, config);
             String text = response.text();
-            // Clean markdown code blocks more robustly
-            return text.replaceAll("(?s)^```(?:json)?\\n?|\\n?```$", "").trim();
+            long latencyMillis = elapsedMillis(start);
+            modelRouter.recordSuccess(model, latencyMillis);
+            record(model, "success", latencyMillis);
+            Integer inputTokens = response.usageMetadata().flatMap(GenerateContentResponseUsageMetadata::promptTokenCount).orElse(null);
+            Integer outputTokens = response.usageMetadata().flatMap(GenerateContentResponseUsageMetadata::candidatesTokenCount).orElse(null);
+            recordTokens(model, "input", inputTokens);
+            recordTokens(model, "output", outputTokens);
+            String finishReason = response.candidates().flatMap(candidates -> candidates.stream().findFirst())
+                    .flatMap(Candidate::finishReason).orElse(null);
+            if (finishReason != null && !"STOP".equals(finishReason)) {
+                logger.warn("Gemini model {} stopped with finish reason {} after {} output tokens", model, finishReason, outputTokens);
+            }
+            return new GenerationResult(stripCodeFence(text), model, latencyMillis,
+                    inputTokens, outputTokens, finishReason);
         } catch (Exception e) {
-            logger.error("Error during Gemini API call", e);
-            throw new RuntimeException("Failed to call Gemini API", e);
+            long latencyMillis = elapsedMillis(start);
+            modelRouter.recordFailure(model, latencyMillis);
+            record(model, "error", latencyMillis);
+            observation.error(e);
+            throw new RuntimeException(e);
+        } finally {
+            observation.stop();
         }
     }
 
     /**
-     * Builds the prompt for the AI based on the request parameters.
+     * Creates the client and opens a pooled connection to the Gemini API with a token count
+     * request, which is free and does not generate anything.
+     */
+    public void openConnection() {
+        String model = modelRouter.route("post", "linkedin");
+        client().models.countTokens(model, "warm-up", null);
+        logger.debug("Gemini connection warmed up for model {}", model);
+    }
+
+    private Client client() {
+        Client current = client;
+        if (current == null) {
+            synchronized (this) {
+                current = client;
+                if (current == null) {
+                    current = Client.builder().apiKey(apiKey).build();
+                    client = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private void record(String model, String outcome, long latencyMillis) {
+        Timer.builder("gemini.generate")
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(latencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Strips the markdown code block some models wrap their JSON in.
+     */
+    static String stripCodeFence(String text) {
+        return text.replaceAll("(?s)^```(?:json)?\\n?|\\n?```$", "").trim();
+    }
+
+    private void recordTokens(String model, String direction, Integer tokens) {
+        if (tokens != null) {
+            DistributionSummary.builder("gemini.tokens")
+                    .baseUnit("tokens")
+                    .tag("model", model)
+                    .tag("direction", direction)
+                    .register(meterRegistry)
+                    .record(tokens);
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Builds the prompt for the AI based on the request parameters, within the prompt token budget.
      *
      * @param request The content generation request.
      * @return A formatted prompt string.
      */
-    private String buildPrompt(GenerateRequest request) {
-        StringBuilder prompt = new StringBuilder();
-        prompt.append("Generate a marketing ").append(request.getContentType());
-        prompt.append(" for ").append(request.getPlatform()).append(". ");
-        prompt.append("The business is '" ).append(request.getBusinessName());
-        prompt.append("' in the '" ).append(request.getIndustry()).append("' industry. ");
-        prompt.append("The desired tone is '" ).append(request.getTone()).append("'. ");
-        prompt.append("The use case is '" ).append(request.getUseCase()).append("'. ");
-
-        prompt.append("\n\nIMPORTANT: Return the result strictly as a valid JSON object. ");
-        prompt.append("Do not include any markdown formatting, backticks, or explanations outside the JSON. ");
-        prompt.append("The JSON object must have the following fields:\n");
-        prompt.append("- headline (string)\n");
-        prompt.append("- content (string: the main body text)\n");
-        prompt.append("- tagline (string)\n");
-        prompt.append("- hashtags (array of strings)\n");
-        prompt.append("- mentions (array of strings)\n");
-        prompt.append("- aiScore (integer 0-100)\n");
-        prompt.append("- predictedEngagement (object with fields: likes, comments, shares)\n");
-
-        return prompt.toString();
+    public String buildPrompt(GenerateRequest request) {
+        return promptBuilder.buildPrompt(request);
+    }
+
+    private record TextCall(String model, String prompt, GenerateContentConfig config) {
     }
 }
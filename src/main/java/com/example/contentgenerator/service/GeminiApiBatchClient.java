@@ -0,0 +1,152 @@
+package com.example.contentgenerator.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+
+import com.example.contentgenerator.util.HttpObservationInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.genai.types.ThinkingConfig;
+
+import io.micrometer.observation.ObservationRegistry;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * {@link GeminiBatchClient} for the Gemini batch endpoint ({@code models/*:batchGenerateContent}).
+ * The Gen AI SDK in use has no batch support, so the REST API is called directly. Requests are sent
+ * inline with their key as metadata, and the outputs are read from the inlined responses of the
+ * finished job.
+ */
+public class GeminiApiBatchClient implements GeminiBatchClient {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final OkHttpClient client;
+    private final ObjectMapper objectMapper;
+    private final String apiKey;
+    private final String baseUrl;
+
+    public GeminiApiBatchClient(String apiKey, String baseUrl, ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.client = new OkHttpClient.Builder()
+                .addInterceptor(new HttpObservationInterceptor("gemini.batch.http", observationRegistry))
+                .build();
+    }
+
+    @Override
+    public String submit(String model, String displayName, List<Entry> entries) throws IOException {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode batch = body.putObject("batch");
+        batch.put("displayName", displayName);
+        ArrayNode requests = batch.putObject("inputConfig").putObject("requests").putArray("requests");
+        for (Entry entry : entries) {
+            ObjectNode item = requests.addObject();
+            ObjectNode request = item.putObject("request");
+            request.putArray("contents").addObject().putArray("parts").addObject().put("text", entry.prompt());
+            if (entry.config() != null) {
+                ObjectNode generationConfig = request.putObject("generationConfig");
+                entry.config().maxOutputTokens().ifPresent(tokens -> generationConfig.put("maxOutputTokens", tokens));
+                entry.config().temperature().ifPresent(temperature -> generationConfig.put("temperature", temperature));
+                entry.config().thinkingConfig().flatMap(ThinkingConfig::thinkingBudget).ifPresent(budget ->
+                        generationConfig.putObject("thinkingConfig").put("thinkingBudget", budget));
+            }
+            item.putObject("metadata").put("key", entry.key());
+        }
+
+        Request request = new Request.Builder()
+                .url(baseUrl + "/models/" + model + ":batchGenerateContent")
+                .tag(String.class, "submit")
+                .header("x-goog-api-key", apiKey)
+                .post(RequestBody.create(objectMapper.writeValueAsBytes(body), JSON))
+                .build();
+        JsonNode operation = execute(request);
+        String name = operation.path("name").asText(null);
+        if (name == null) {
+            throw new IOException("Batch submission returned no job name");
+        }
+        return name;
+    }
+
+    @Override
+    public Status poll(String jobName) throws IOException {
+        Request request = new Request.Builder()
+                .url(baseUrl + "/" + jobName)
+                .tag(String.class, "poll")
+                .header("x-goog-api-key", apiKey)
+                .get()
+                .build();
+        JsonNode operation = execute(request);
+        State state = state(operation.path("metadata").path("state").asText(""));
+        if (operation.has("error")) {
+            return new Status(State.FAILED, List.of(), operation.path("error").path("message").asText(null));
+        }
+        if (state != State.SUCCEEDED) {
+            return new Status(state, List.of(), null);
+        }
+        JsonNode inlined = operation.path("response").path("inlinedResponses").path("inlinedResponses");
+        if (inlined.isMissingNode()) {
+            inlined = operation.path("metadata").path("output").path("inlinedResponses").path("inlinedResponses");
+        }
+        List<Output> outputs = new ArrayList<>();
+        for (JsonNode item : inlined) {
+            outputs.add(output(item));
+        }
+        return new Status(state, outputs, null);
+    }
+
+    private Output output(JsonNode item) {
+        String key = item.path("metadata").path("key").asText(null);
+        if (item.has("error")) {
+            return new Output(key, null, null, null, item.path("error").path("message").asText("Unknown error"));
+        }
+        JsonNode response = item.path("response");
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : response.path("candidates").path(0).path("content").path("parts")) {
+            text.append(part.path("text").asText(""));
+        }
+        if (text.length() == 0) {
+            String reason = response.path("candidates").path(0).path("finishReason").asText("no candidates");
+            return new Output(key, null, null, null, "Empty response: " + reason);
+        }
+        JsonNode usage = response.path("usageMetadata");
+        return new Output(key, GeminiAiService.stripCodeFence(text.toString()),
+                usage.has("promptTokenCount") ? usage.get("promptTokenCount").asInt() : null,
+                usage.has("candidatesTokenCount") ? usage.get("candidatesTokenCount").asInt() : null,
+                null);
+    }
+
+    private JsonNode execute(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                throw new IOException("Gemini batch call failed with " + response.code() + ": " + body);
+            }
+            return objectMapper.readTree(body);
+        }
+    }
+
+    /**
+     * Maps {@code BATCH_STATE_SUCCEEDED} (or the older {@code JOB_STATE_SUCCEEDED}) to {@link State#SUCCEEDED};
+     * states not known here count as still running.
+     */
+    private static State state(String value) {
+        String suffix = value.substring(value.lastIndexOf('_') + 1).toUpperCase(Locale.ROOT);
+        for (State state : State.values()) {
+            if (state.name().equals(suffix)) {
+                return state;
+            }
+        }
+        return State.RUNNING;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.contentgenerator.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.genai.types.GenerateContentConfig;
+
+/**
+ * Submits generation requests to Gemini as one asynchronous batch job and reads the job back.
+ * {@code gemini.batch.client} selects the implementation: {@code api} for the Gemini batch endpoint,
+ * {@code local} for an in-process stand-in that needs no network or API key.
+ */
+public interface GeminiBatchClient {
+
+    /**
+     * Submits the entries as one batch job on the model.
+     *
+     * @return The name of the job, used to poll it.
+     * @throws IOException If the job could not be submitted.
+     */
+    String submit(String model, String displayName, List<Entry> entries) throws IOException;
+
+    /**
+     * Reads the state of a job; the outputs are only present once the job has succeeded.
+     *
+     * @throws IOException If the job could not be read.
+     */
+    Status poll(String jobName) throws IOException;
+
+    enum State {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED, EXPIRED;
+
+        public boolean isTerminal() {
+            return this != PENDING && this != RUNNING;
+        }
+    }
+
+    /**
+     * One request of a batch, identified by a key that is unique within the batch.
+     */
+    record Entry(String key, String prompt, GenerateContentConfig config) {
+    }
+
+    /**
+     * The result for one entry: the generated text, or the error Gemini returned for it.
+     */
+    record Output(String key, String text, Integer inputTokens, Integer outputTokens, String error) {
+    }
+
+    record Status(State state, List<Output> outputs, String error) {
+    }
+}
@@ -0,0 +1,405 @@
+package com.example.contentgenerator.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.model.GenerationBatch;
+import com.example.contentgenerator.repository.GenerationBatchRepository;
+import com.example.contentgenerator.scheduler.SchedulingService;
+import com.example.contentgenerator.util.SimHash;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Generates large campaigns offline through Gemini batch jobs instead of one call per post.
+ * Submitted requests are grouped by routed model, each group becomes one {@link GenerationBatch}
+ * and one job on the {@link GeminiBatchClient}. Running batches are polled every
+ * {@code gemini.batch.poll-interval}; when a job finishes, one node claims the batch and ingests
+ * its results: every output is recorded in the generation history, and requests with a schedule
+ * are added to the scheduler with the generated content. Outputs that repeat a recent post of the
+ * user, or an earlier output of the same batch, are recorded as {@code DUPLICATE} and not scheduled.
+ * <p>
+ * Submitting and ingesting are done under a lease of {@code gemini.batch.claim-lease}, renewed with
+ * every ingested entry. Ingest progress is saved by entry index, so when a node dies mid-ingest another
+ * node takes over once the lease runs out and resumes at the saved index; only the entry in progress
+ * can be ingested twice. A submission whose lease runs out is failed, since the job it may have
+ * created cannot be tracked.
+ */
+@Service
+public class GeminiBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiBatchService.class);
+
+    private final GeminiBatchClient batchClient;
+    private final GenerationBatchRepository batchRepository;
+    private final PromptBuilder promptBuilder;
+    private final ModelRouter modelRouter;
+    private final AiResponseParser aiResponseParser;
+    private final SchedulingService schedulingService;
+    private final GenerationHistoryService generationHistoryService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final DuplicateContentIndex duplicateContentIndex;
+    private final int maxRequests;
+    private final Duration claimLease;
+
+    public GeminiBatchService(GeminiBatchClient batchClient, GenerationBatchRepository batchRepository,
+                              PromptBuilder promptBuilder, ModelRouter modelRouter, AiResponseParser aiResponseParser,
+                              SchedulingService schedulingService, GenerationHistoryService generationHistoryService,
+                              Validator validator, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              DuplicateContentIndex duplicateContentIndex,
+                              @Value("${gemini.batch.max-requests:5000}") int maxRequests,
+                              @Value("${gemini.batch.claim-lease:PT10M}") Duration claimLease) {
+        this.batchClient = batchClient;
+        this.batchRepository = batchRepository;
+        this.promptBuilder = promptBuilder;
+        this.modelRouter = modelRouter;
+        this.aiResponseParser = aiResponseParser;
+        this.schedulingService = schedulingService;
+        this.generationHistoryService = generationHistoryService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.duplicateContentIndex = duplicateContentIndex;
+        this.maxRequests = maxRequests;
+        this.claimLease = claimLease;
+    }
+
+    /**
+     * Validates a submission like {@code /generate} requests, plus the limits of batch mode:
+     * image posts and deferred generation cannot be batched.
+     *
+     * @return Error messages by field path, empty if the submission is valid.
+     */
+    public Map<String, String> validate(List<GenerateRequest> requests) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        if (requests == null || requests.isEmpty()) {
+            errors.put("requests", "At least one request is required.");
+            return errors;
+        }
+        if (requests.size() > maxRequests) {
+            errors.put("requests", "At most " + maxRequests + " requests can be submitted in one batch.");
+            return errors;
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            GenerateRequest request = requests.get(i);
+            String prefix = "requests[" + i + "].";
+            if (request == null) {
+                errors.put("requests[" + i + "]", "Request must not be null.");
+                continue;
+            }
+            for (ConstraintViolation<GenerateRequest> violation : validator.validate(request)) {
+                errors.put(prefix + violation.getPropertyPath(), violation.getMessage());
+            }
+            if (request.isImage()) {
+                errors.put(prefix + "contentType", "Image posts cannot be generated in a batch.");
+            }
+            if (request.getSchedule() != null && request.getSchedule().isDeferred()) {
+                errors.put(prefix + "schedule.generation", "Deferred generation cannot be combined with a batch.");
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Submits validated requests as one batch per routed model.
+     *
+     * @return The batches created, in the order their first request was submitted.
+     */
+    public List<GenerationBatch> submit(List<GenerateRequest> requests, String userId) {
+        Map<String, List<GenerateRequest>> byModel = new LinkedHashMap<>();
+        for (GenerateRequest request : requests) {
+            // Batch posts resolve the user's token at publish time; a token must not be stored with the batch
+            request.setAccessToken(null);
+            String model = modelRouter.route(request.getContentType(), request.getPlatform());
+            byModel.computeIfAbsent(model, key -> new ArrayList<>()).add(request);
+        }
+        List<GenerationBatch> batches = new ArrayList<>();
+        for (Map.Entry<String, List<GenerateRequest>> group : byModel.entrySet()) {
+            batches.add(submitGroup(userId, group.getKey(), group.getValue()));
+        }
+        return batches;
+    }
+
+    private GenerationBatch submitGroup(String userId, String model, List<GenerateRequest> requests) {
+        GenerationBatch batch = new GenerationBatch();
+        batch.setId(UUID.randomUUID().toString());
+        batch.setUserId(userId);
+        batch.setModel(model);
+        batch.setState(GenerationBatch.SUBMITTING);
+        batch.setRequestCount(requests.size());
+        batch.setCreatedAt(Instant.now());
+        String token = UUID.randomUUID().toString();
+        batch.setClaimToken(token);
+        batch.setLeaseUntil(batch.getCreatedAt().plus(claimLease));
+        try {
+            batch.setRequests(objectMapper.writeValueAsString(requests));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Requests cannot be serialized: " + e.getOriginalMessage(), e);
+        }
+        // Saved before submission, so a job that was accepted is never without its requests
+        batchRepository.save(batch);
+
+        List<GeminiBatchClient.Entry> entries = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            GenerateRequest request = requests.get(i);
+            entries.add(new GeminiBatchClient.Entry(String.valueOf(i), promptBuilder.buildPrompt(request),
+                    promptBuilder.configFor(request.getContentType())));
+        }
+        String jobName;
+        try {
+            jobName = batchClient.submit(model, "contentgenerator-" + batch.getId(), entries);
+        } catch (Exception e) {
+            logger.warn("Submitting batch {} with {} requests failed", batch.getId(), requests.size(), e);
+            batch.setState(GenerationBatch.FAILED);
+            batch.setError(e.getMessage());
+            batch.setFailed(requests.size());
+            batch.setCompletedAt(Instant.now());
+            batchRepository.finish(batch.getId(), token, GenerationBatch.FAILED, 0, requests.size(), 0,
+                    batch.getError(), batch.getCompletedAt());
+            meterRegistry.counter("gemini.batch.jobs", "state", "submit_failed").increment();
+            return batch;
+        }
+        if (batchRepository.submitted(batch.getId(), token, jobName) == 0) {
+            // The submission took longer than its lease and another node gave it up
+            logger.warn("Batch {} was accepted as {} after its submission had been given up; its results are not ingested",
+                    batch.getId(), jobName);
+            return batchRepository.findById(batch.getId()).orElse(batch);
+        }
+        batch.setJobName(jobName);
+        batch.setState(GenerationBatch.RUNNING);
+        batch.setClaimToken(null);
+        batch.setLeaseUntil(null);
+        meterRegistry.counter("gemini.batch.requests", "outcome", "submitted").increment(requests.size());
+        logger.info("Submitted batch {} with {} requests on model {} as {}", batch.getId(), requests.size(), model, jobName);
+        return batch;
+    }
+
+    public GenerationBatch findBatch(String userId, String id) {
+        return batchRepository.findByIdAndUserId(id, userId).orElse(null);
+    }
+
+    public Page<GenerationBatch> findBatches(String userId, Pageable pageable) {
+        return batchRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
+    }
+
+    /**
+     * Polls the running batches and ingests the ones that finished. Claims whose lease ran out are
+     * taken over first: a stale submission is given up, a stale ingest is resumed.
+     */
+    @Scheduled(fixedDelayString = "${gemini.batch.poll-interval:PT1M}")
+    public void pollBatches() {
+        Instant now = Instant.now();
+        for (GenerationBatch batch : batchRepository.findByStateAndLeaseUntilBefore(GenerationBatch.SUBMITTING, now)) {
+            try {
+                abandonSubmission(batch, now);
+            } catch (Exception e) {
+                logger.warn("Giving up the stale submission of batch {} failed", batch.getId(), e);
+            }
+        }
+        for (GenerationBatch batch : batchRepository.findByStateAndLeaseUntilBefore(GenerationBatch.INGESTING, now)) {
+            try {
+                resumeIngest(batch, now);
+            } catch (Exception e) {
+                // The lease taken here runs out again, so a later poll retries
+                logger.warn("Resuming the ingest of batch {} ({}) failed", batch.getId(), batch.getJobName(), e);
+            }
+        }
+        for (GenerationBatch batch : batchRepository.findByState(GenerationBatch.RUNNING)) {
+            try {
+                poll(batch);
+            } catch (Exception e) {
+                // Left RUNNING, so the next poll tries again
+                logger.warn("Polling batch {} ({}) failed", batch.getId(), batch.getJobName(), e);
+            }
+        }
+    }
+
+    private void poll(GenerationBatch batch) throws Exception {
+        GeminiBatchClient.Status status = batchClient.poll(batch.getJobName());
+        if (!status.state().isTerminal()) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        if (batchRepository.claim(batch.getId(), GenerationBatch.RUNNING, GenerationBatch.INGESTING, token,
+                Instant.now().plus(claimLease)) == 0) {
+            // Another node claimed it
+            return;
+        }
+        ingest(batch, token, status);
+    }
+
+    /**
+     * The node submitting the batch died or hung before it recorded the job. The job may exist,
+     * but without its name it cannot be polled, so the batch is failed rather than submitted twice.
+     */
+    private void abandonSubmission(GenerationBatch batch, Instant now) {
+        String token = UUID.randomUUID().toString();
+        if (batchRepository.takeOver(batch.getId(), GenerationBatch.SUBMITTING, token, now.plus(claimLease), now) == 0) {
+            return;
+        }
+        String error = "Submission was interrupted; the batch job could not be tracked";
+        batchRepository.finish(batch.getId(), token, GenerationBatch.FAILED, 0, batch.getRequestCount(), 0, error, now);
+        meterRegistry.counter("gemini.batch.jobs", "state", "submit_abandoned").increment();
+        logger.warn("Gave up stale submission of batch {} with {} requests", batch.getId(), batch.getRequestCount());
+    }
+
+    private void resumeIngest(GenerationBatch batch, Instant now) throws Exception {
+        String token = UUID.randomUUID().toString();
+        if (batchRepository.takeOver(batch.getId(), GenerationBatch.INGESTING, token, now.plus(claimLease), now) == 0) {
+            return;
+        }
+        meterRegistry.counter("gemini.batch.jobs", "state", "taken_over").increment();
+        logger.warn("Taking over stale ingest of batch {} at entry {} of {}", batch.getId(), batch.getIngested(),
+                batch.getRequestCount());
+        ingest(batch, token, batchClient.poll(batch.getJobName()));
+    }
+
+    /**
+     * Ingests a finished job from the batch's saved progress on, while holding the claim.
+     * Progress is saved with each entry, so a node taking over repeats at most the entry that was in progress.
+     */
+    private void ingest(GenerationBatch batch, String token, GeminiBatchClient.Status status) throws Exception {
+        List<GenerateRequest> requests = List.of(objectMapper.readValue(batch.getRequests(), GenerateRequest[].class));
+        boolean jobSucceeded = status.state() == GeminiBatchClient.State.SUCCEEDED;
+        String jobError = jobSucceeded ? null
+                : status.error() != null ? status.error() : "Batch job ended as " + status.state();
+        GeminiBatchClient.Output[] outputs = jobSucceeded
+                ? byIndex(batch, status.outputs(), requests.size()) : new GeminiBatchClient.Output[requests.size()];
+        long latencyMillis = Duration.between(batch.getCreatedAt(), Instant.now()).toMillis();
+        // Fingerprints of the content accepted in this run, so one batch does not schedule near-duplicates of itself
+        List<Long> accepted = new ArrayList<>();
+        int succeeded = batch.getSucceeded();
+        for (int i = batch.getIngested(); i < requests.size(); i++) {
+            if (batchRepository.renew(batch.getId(), token, i, succeeded, Instant.now().plus(claimLease)) == 0) {
+                logger.warn("Lost the claim on batch {} at entry {}; another node continues the ingest", batch.getId(), i);
+                return;
+            }
+            if (ingestOne(batch, requests.get(i), outputs[i], jobError, latencyMillis, accepted)) {
+                succeeded++;
+            }
+        }
+        String state = jobSucceeded ? GenerationBatch.COMPLETED : GenerationBatch.FAILED;
+        int failed = requests.size() - succeeded;
+        Instant completedAt = Instant.now();
+        if (batchRepository.finish(batch.getId(), token, state, succeeded, failed, requests.size(), jobError, completedAt) == 0) {
+            logger.warn("Lost the claim on batch {} before it could be finished", batch.getId());
+            return;
+        }
+        batch.setState(state);
+        batch.setSucceeded(succeeded);
+        batch.setFailed(failed);
+        batch.setIngested(requests.size());
+        batch.setError(jobError);
+        batch.setCompletedAt(completedAt);
+        meterRegistry.counter("gemini.batch.jobs", "state", status.state().name().toLowerCase()).increment();
+        logger.info("Batch {} finished as {}: {} succeeded, {} failed", batch.getId(), status.state(), succeeded, failed);
+    }
+
+    private GeminiBatchClient.Output[] byIndex(GenerationBatch batch, List<GeminiBatchClient.Output> outputs, int size) {
+        GeminiBatchClient.Output[] byIndex = new GeminiBatchClient.Output[size];
+        for (GeminiBatchClient.Output output : outputs) {
+            int index = index(output.key(), size);
+            if (index < 0 || byIndex[index] != null) {
+                logger.warn("Batch {} returned an output for unknown or repeated key '{}'", batch.getId(), output.key());
+                continue;
+            }
+            byIndex[index] = output;
+        }
+        return byIndex;
+    }
+
+    private boolean ingestOne(GenerationBatch batch, GenerateRequest request, GeminiBatchClient.Output output,
+                              String jobError, long latencyMillis, List<Long> accepted) {
+        String userId = batch.getUserId();
+        if (output == null || output.error() != null) {
+            String error = jobError != null ? jobError : output == null ? "No result returned for this request" : output.error();
+            generationHistoryService.recordGeneration(userId, batch.getId(), null, request, null, null, "FAILED", error);
+            count("failed");
+            return false;
+        }
+        GenerationResult generation = new GenerationResult(output.text(), batch.getModel(), latencyMillis,
+                output.inputTokens(), output.outputTokens());
+        AiResponseParser.ParsedContent parsed = aiResponseParser.parse(output.text());
+        String content = parsed.getContent();
+        if (content.isBlank()) {
+            generationHistoryService.recordGeneration(userId, batch.getId(), null, request, generation, content, "EMPTY", null);
+            count("empty");
+            return false;
+        }
+        // There is no regenerating offline, so a near-duplicate is recorded but never scheduled
+        if (isDuplicate(userId, content, accepted)) {
+            generationHistoryService.recordGeneration(userId, batch.getId(), null, request, generation, content, "DUPLICATE", null);
+            count("duplicate");
+            return false;
+        }
+        String status = parsed.isFailed() ? "PARSE_FAILED" : parsed.isPartial() ? "PARTIAL" : "SUCCESS";
+        String postId = null;
+        if (request.getSchedule() != null) {
+            try {
+                // No token is stored with batch posts; publishers resolve the user's token at publish time
+                postId = schedulingService.schedulePost(request, content, null, userId).getId();
+            } catch (IllegalArgumentException e) {
+                generationHistoryService.recordGeneration(userId, batch.getId(), null, request, generation, content,
+                        "SCHEDULE_FAILED", e.getMessage());
+                count("failed");
+                return false;
+            }
+        }
+        accepted.add(SimHash.fingerprint(content));
+        generationHistoryService.recordGeneration(userId, batch.getId(), postId, request, generation, content, status, null);
+        count(postId != null ? "scheduled" : "recorded");
+        return true;
+    }
+
+    /**
+     * Whether the content repeats something the user published recently, or an earlier output of this batch.
+     */
+    private boolean isDuplicate(String userId, String content, List<Long> accepted) {
+        if (duplicateContentIndex.isDuplicate(userId, content)) {
+            return true;
+        }
+        if (!duplicateContentIndex.isEnabled()) {
+            return false;
+        }
+        long fingerprint = SimHash.fingerprint(content);
+        for (long other : accepted) {
+            if (SimHash.distance(fingerprint, other) <= duplicateContentIndex.getMaxDistance()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("gemini.batch.requests", "outcome", outcome).increment();
+    }
+
+    private static int index(String key, int size) {
+        try {
+            int index = Integer.parseInt(key);
+            return index >= 0 && index < size ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
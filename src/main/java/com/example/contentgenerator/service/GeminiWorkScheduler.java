@@ -0,0 +1,343 @@
+package com.example.contentgenerator.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Central priority scheduler for all Gemini calls.
+ * <p>
+ * Work is queued in one lane per {@link GenerationPriority} and executed by a fixed pool of
+ * workers sized to the Gemini concurrency budget. Within a lane, tenants share capacity by
+ * weighted fair queuing (start-time virtual clock), so one tenant's large batch cannot crowd
+ * out another's. Interactive work always goes first. Between batch and background, batch wins
+ * unless the background head has waited long enough to age past it, which keeps background
+ * work from starving; aging never lets either of them outrank a waiting interactive request.
+ * A number of workers can be reserved so interactive requests never wait behind a full pool
+ * of batch calls. The submitter's thread-local context (the current observation, and with it the
+ * trace and logging MDC) is captured with each task and restored on the worker that runs it.
+ */
+@Component
+public class GeminiWorkScheduler implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiWorkScheduler.class);
+    private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Lane[] lanes = new Lane[GenerationPriority.values().length];
+    private final Map<String, Double> tenantWeights;
+    private final long agingStepMillis;
+    private final int concurrency;
+    private final int reservedInteractive;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService workers;
+    private final MeterRegistry meterRegistry;
+    private int busyNonInteractive;
+    private volatile boolean running = true;
+
+    public GeminiWorkScheduler(
+            @Value("${gemini.scheduler.concurrency:8}") int concurrency,
+            @Value("${gemini.scheduler.reserved-interactive:2}") int reservedInteractive,
+            @Value("${gemini.scheduler.aging-step:PT30S}") Duration agingStep,
+            @Value("${gemini.scheduler.tenant-weights:}") String tenantWeights,
+            MeterRegistry meterRegistry) {
+        this.concurrency = concurrency;
+        this.reservedInteractive = Math.min(reservedInteractive, concurrency - 1);
+        this.agingStepMillis = agingStep.toMillis();
+        this.tenantWeights = parseWeights(tenantWeights);
+        this.meterRegistry = meterRegistry;
+        for (GenerationPriority priority : GenerationPriority.values()) {
+            Lane lane = new Lane(priority);
+            lanes[priority.ordinal()] = lane;
+            meterRegistry.gauge("gemini.scheduler.queued", Tags.of("lane", priority.name().toLowerCase()),
+                    lane, l -> l.size);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "gemini-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(this::workerLoop);
+        }
+    }
+
+    /**
+     * Queues the work and returns a future for its result.
+     *
+     * @param priority The lane to queue the work in.
+     * @param tenant The tenant the work is charged to for fair sharing.
+     * @param work The Gemini call to run.
+     */
+    public <T> CompletableFuture<T> submit(GenerationPriority priority, String tenant, Supplier<T> work) {
+        Task<T> task = new Task<>(priority, tenant == null ? "" : tenant, work, sequence.incrementAndGet());
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Gemini work scheduler is shut down");
+            }
+            lanes[priority.ordinal()].enqueue(task, weightOf(task.tenant));
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        return task.future;
+    }
+
+    /**
+     * Queues the work and blocks until it has run, or until the timeout expires.
+     * On expiry the task is cancelled: dropped if it is still queued, its result discarded if it is running.
+     * Runtime exceptions thrown by the work are rethrown as-is.
+     *
+     * @param timeout How long to wait, including the time spent in the queue.
+     * @throws IllegalStateException If the timeout expires first.
+     */
+    public <T> T execute(GenerationPriority priority, String tenant, Supplier<T> work, Duration timeout) {
+        return await(submit(priority, tenant, work), timeout);
+    }
+
+    /**
+     * Waits for a Gemini call's future, cancelling it if the timeout expires first.
+     * Runtime exceptions the call failed with are rethrown as-is.
+     */
+    static <T> T await(CompletableFuture<T> future, Duration timeout) {
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new IllegalStateException("Gemini call did not finish within " + timeout, e);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Gemini call", e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Gemini call was cancelled", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Gemini call failed", e.getCause());
+        }
+    }
+
+    private void workerLoop() {
+        while (running) {
+            Task<?> task;
+            lock.lock();
+            try {
+                while ((task = next()) == null) {
+                    if (!running) {
+                        return;
+                    }
+                    workAvailable.await();
+                }
+                if (task.priority != GenerationPriority.INTERACTIVE) {
+                    busyNonInteractive++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Timer.builder("gemini.scheduler.wait")
+                        .tag("lane", task.priority.name().toLowerCase())
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - task.enqueuedNanos, TimeUnit.NANOSECONDS);
+                task.run();
+            } finally {
+                if (task.priority != GenerationPriority.INTERACTIVE) {
+                    lock.lock();
+                    try {
+                        busyNonInteractive--;
+                        // A freed non-interactive slot may unblock queued batch work
+                        workAvailable.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks the next task across lanes. Must be called with the lock held.
+     * A queued interactive task is always taken first. Otherwise each remaining lane's head is
+     * scored by its lane rank minus the aging credit it has earned while waiting; the lowest score
+     * wins. Non-interactive lanes are skipped while they would eat into the workers reserved for
+     * interactive calls.
+     */
+    private Task<?> next() {
+        Lane interactive = lanes[GenerationPriority.INTERACTIVE.ordinal()];
+        if (interactive.peek() != null) {
+            return interactive.poll();
+        }
+        if (busyNonInteractive >= concurrency - reservedInteractive) {
+            return null;
+        }
+        long now = System.nanoTime();
+        Lane best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (Lane lane : lanes) {
+            Task<?> head = lane.peek();
+            if (head == null) {
+                continue;
+            }
+            double waitedSteps = TimeUnit.NANOSECONDS.toMillis(now - head.enqueuedNanos) / (double) agingStepMillis;
+            double score = lane.priority.ordinal() - waitedSteps;
+            if (score < bestScore) {
+                bestScore = score;
+                best = lane;
+            }
+        }
+        return best == null ? null : best.poll();
+    }
+
+    private double weightOf(String tenant) {
+        return tenantWeights.getOrDefault(tenant, 1.0);
+    }
+
+    private static Map<String, Double> parseWeights(String weights) {
+        Map<String, Double> parsed = new HashMap<>();
+        if (weights == null || weights.isBlank()) {
+            return parsed;
+        }
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid gemini.scheduler.tenant-weights entry: '" + entry.trim() + "'");
+            }
+            parsed.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return parsed;
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            running = false;
+            for (Lane lane : lanes) {
+                Task<?> task;
+                while ((task = lane.poll()) != null) {
+                    task.future.completeExceptionally(new CancellationException("Gemini work scheduler shut down"));
+                }
+            }
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workers.shutdown();
+        logger.info("Gemini work scheduler stopped");
+    }
+
+    /**
+     * One priority lane with weighted fair queuing between tenants.
+     * Each task gets a virtual start time of max(lane clock, tenant's last finish); the tenant's
+     * finish then advances by 1/weight. Serving tasks in virtual start order interleaves tenants
+     * in proportion to their weights regardless of how much each one has queued.
+     */
+    private static class Lane {
+        private final GenerationPriority priority;
+        private final PriorityQueue<Task<?>> queue = new PriorityQueue<>(
+                Comparator.<Task<?>>comparingDouble(t -> t.virtualStart).thenComparingLong(t -> t.sequence));
+        private final Map<String, Double> tenantFinish = new HashMap<>();
+        private double virtualTime;
+        private volatile int size;
+
+        Lane(GenerationPriority priority) {
+            this.priority = priority;
+        }
+
+        void enqueue(Task<?> task, double weight) {
+            double start = Math.max(virtualTime, tenantFinish.getOrDefault(task.tenant, 0.0));
+            task.virtualStart = start;
+            tenantFinish.put(task.tenant, start + 1.0 / weight);
+            queue.add(task);
+            size = queue.size();
+        }
+
+        Task<?> peek() {
+            Task<?> head;
+            // Drop tasks whose callers have given up
+            while ((head = queue.peek()) != null && head.future.isCancelled()) {
+                queue.poll();
+            }
+            size = queue.size();
+            return head;
+        }
+
+        Task<?> poll() {
+            Task<?> task = peek();
+            if (task != null) {
+                queue.poll();
+                size = queue.size();
+                virtualTime = task.virtualStart;
+                if (queue.isEmpty()) {
+                    // Idle lane: no tenant can be behind, so the finish tags can be forgotten
+                    tenantFinish.clear();
+                }
+            }
+            return task;
+        }
+    }
+
+    private static class Task<T> {
+        private final GenerationPriority priority;
+        private final String tenant;
+        private final Supplier<T> work;
+        private final long sequence;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final ContextSnapshot context = SNAPSHOTS.captureAll();
+        private double virtualStart;
+
+        Task(GenerationPriority priority, String tenant, Supplier<T> work, long sequence) {
+            this.priority = priority;
+            this.tenant = tenant;
+            this.work = work;
+            this.sequence = sequence;
+        }
+
+        void run() {
+            if (future.isCancelled()) {
+                return;
+            }
+            try (ContextSnapshot.Scope scope = context.setThreadLocals()) {
+                future.complete(work.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.contentgenerator.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.ThinkingConfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Two-tier cache of text generations, keyed by the SHA-256 of the canonical request: tenant, routed
+ * model, output settings and prompt (which already has the request fields compacted).
+ * <p>
+ * The tenant is part of the key, so one tenant's generations are never served to another, and a
+ * tenant that invalidates a result (because it repeats one of its own posts) does not drop it for
+ * everyone else.
+ * <p>
+ * L1 is an in-process LRU map of at most {@code gemini.cache.l1.max-entries} results. L2 is the
+ * {@code generation_cache} table, shared by all nodes, holding {@link GenerationResultCodec} payloads.
+ * Both expire entries after {@code gemini.cache.ttl}. A lookup reads L1, then L2, then calls the
+ * loader; concurrent lookups of the same key on one node share a single fill instead of each
+ * reading L2 or calling Gemini. Nodes do not coordinate fills with each other.
+ * A lookup only joins a fill started on the same or a higher-priority lane: a caller that outranks
+ * the fill in progress starts its own, so an interactive request never waits on a pre-generation's
+ * place in the work queue. {@link #refresh} skips the cached result altogether, for an explicit regeneration.
+ * Only results the caller accepts as complete are stored; a truncated or empty response is handed
+ * back to the callers of that fill and then forgotten, so the next lookup calls Gemini again.
+ * <p>
+ * L2 is best effort: if the database is unavailable, lookups fall through to the loader and
+ * writes are dropped, so the cache never fails a generation.
+ */
+@Component
+public class GenerationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationCache.class);
+
+    private static final String SELECT_SQL = "SELECT payload FROM generation_cache WHERE request_hash = ? AND expires_at > ?";
+    private static final String UPSERT_SQL = "INSERT INTO generation_cache (request_hash, payload, expires_at, created_at) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT (request_hash) DO UPDATE SET payload = EXCLUDED.payload, "
+            + "expires_at = EXCLUDED.expires_at, created_at = EXCLUDED.created_at";
+    private static final String DELETE_SQL = "DELETE FROM generation_cache WHERE request_hash = ?";
+    private static final String PURGE_SQL = "DELETE FROM generation_cache WHERE expires_at <= ?";
+
+    private final Map<String, CachedResult> l1;
+    // Fills in progress on this node, so concurrent lookups of one key share them
+    private final Map<String, Fill> inflight = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean l2Enabled;
+    private final Duration ttl;
+
+    public GenerationCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                           @Value("${gemini.cache.enabled:true}") boolean enabled,
+                           @Value("${gemini.cache.l2.enabled:true}") boolean l2Enabled,
+                           @Value("${gemini.cache.l1.max-entries:1000}") int maxEntries,
+                           @Value("${gemini.cache.ttl:PT1H}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.l2Enabled = l2Enabled;
+        this.ttl = ttl;
+        this.l1 = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        meterRegistry.gaugeMapSize("gemini.cache.l1.size", Tags.empty(), l1);
+    }
+
+    /**
+     * Computes the cache key of a request.
+     */
+    public byte[] key(String tenant, String model, String prompt, GenerateContentConfig config) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        // Fields are separated by a byte that cannot occur in UTF-8 text
+        digest.update(String.valueOf(tenant).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0xFF);
+        digest.update(model.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0xFF);
+        if (config != null) {
+            digest.update(String.valueOf(config.maxOutputTokens().orElse(null)).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0xFF);
+            digest.update(String.valueOf(config.temperature().orElse(null)).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0xFF);
+            digest.update(String.valueOf(config.thinkingConfig().flatMap(ThinkingConfig::thinkingBudget).orElse(null))
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0xFF);
+        digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    /**
+     * Returns the cached result for the key, or fills the cache from the loader.
+     * A hit carries the model of the original call but no token counts, since it cost none.
+     *
+     * @param priority The lane the loader queues its call on; decides whether a fill in progress is joined.
+     * @param loader Starts the generation; only called on a miss in both tiers.
+     * @param cacheable Decides whether a loaded result is complete enough to be stored.
+     */
+    public CompletableFuture<GenerationResult> get(byte[] key, GenerationPriority priority,
+                                                   Supplier<CompletableFuture<GenerationResult>> loader,
+                                                   Predicate<GenerationResult> cacheable) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String id = HexFormat.of().formatHex(key);
+        GenerationResult cached = readL1(id);
+        if (cached != null) {
+            count("l1", "hit");
+            return CompletableFuture.completedFuture(cached);
+        }
+        count("l1", "miss");
+
+        Fill fill = new Fill(priority);
+        while (true) {
+            Fill existing = inflight.putIfAbsent(id, fill);
+            if (existing == null) {
+                break;
+            }
+            if (existing.priority.compareTo(priority) <= 0) {
+                meterRegistry.counter("gemini.cache.coalesced").increment();
+                return existing.future.thenApply(result ->
+                        new GenerationResult(result.getText(), result.getModel(), result.getLatencyMillis()));
+            }
+            // The fill in progress is queued on a lower lane; later lookups join this one instead
+            if (inflight.replace(id, existing, fill)) {
+                meterRegistry.counter("gemini.cache.outranked").increment();
+                break;
+            }
+        }
+        return fill(id, key, fill, loader, cacheable, true);
+    }
+
+    /**
+     * Calls the loader without reading either tier, for an explicit regeneration, and stores the
+     * result like a miss would. Lookups of the key made meanwhile share this fill.
+     */
+    public CompletableFuture<GenerationResult> refresh(byte[] key, GenerationPriority priority,
+                                                       Supplier<CompletableFuture<GenerationResult>> loader,
+                                                       Predicate<GenerationResult> cacheable) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String id = HexFormat.of().formatHex(key);
+        Fill fill = new Fill(priority);
+        inflight.put(id, fill);
+        meterRegistry.counter("gemini.cache.refreshed").increment();
+        return fill(id, key, fill, loader, cacheable, false);
+    }
+
+    private CompletableFuture<GenerationResult> fill(String id, byte[] key, Fill fill,
+                                                     Supplier<CompletableFuture<GenerationResult>> loader,
+                                                     Predicate<GenerationResult> cacheable, boolean readL2) {
+        CompletableFuture<GenerationResult> future = fill.future;
+        future.whenComplete((result, error) -> inflight.remove(id, fill));
+        try {
+            if (readL2) {
+                GenerationResult cached = readL2(key);
+                if (cached != null) {
+                    count("l2", "hit");
+                    writeL1(id, cached);
+                    future.complete(cached);
+                    return future;
+                }
+                count("l2", "miss");
+            }
+            loader.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                    return;
+                }
+                if (cacheable.test(result)) {
+                    writeL1(id, result);
+                    writeL2(key, result);
+                } else {
+                    meterRegistry.counter("gemini.cache.rejected").increment();
+                }
+                future.complete(result);
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Drops the entry from both tiers, e.g. because its content turned out to repeat a recent post.
+     */
+    public void invalidate(byte[] key) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (l1) {
+            l1.remove(HexFormat.of().formatHex(key));
+        }
+        if (l2Enabled) {
+            try {
+                jdbcTemplate.update(DELETE_SQL, (Object) key);
+            } catch (Exception e) {
+                logger.warn("Removing generation cache entry from the database failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes expired L2 entries.
+     */
+    @Scheduled(fixedDelayString = "${gemini.cache.purge-interval:PT10M}")
+    public void purgeExpired() {
+        if (!enabled || !l2Enabled) {
+            return;
+        }
+        try {
+            int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now()));
+            if (purged > 0) {
+                logger.debug("Purged {} expired generation cache entries", purged);
+            }
+        } catch (Exception e) {
+            logger.warn("Purging expired generation cache entries failed: {}", e.getMessage());
+        }
+    }
+
+    private GenerationResult readL1(String id) {
+        synchronized (l1) {
+            CachedResult cached = l1.get(id);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt.isBefore(Instant.now())) {
+                l1.remove(id);
+                return null;
+            }
+            return cached.result;
+        }
+    }
+
+    private void writeL1(String id, GenerationResult result) {
+        CachedResult cached = new CachedResult(new GenerationResult(result.getText(), result.getModel(), 0), Instant.now().plus(ttl));
+        synchronized (l1) {
+            l1.put(id, cached);
+        }
+    }
+
+    private GenerationResult readL2(byte[] key) {
+        if (!l2Enabled) {
+            return null;
+        }
+        try {
+            List<byte[]> payloads = jdbcTemplate.query(SELECT_SQL, (rs, row) -> rs.getBytes(1), key, Timestamp.from(Instant.now()));
+            return payloads.isEmpty() ? null : GenerationResultCodec.decode(payloads.get(0));
+        } catch (Exception e) {
+            meterRegistry.counter("gemini.cache.l2.errors", "operation", "read").increment();
+            logger.warn("Reading the generation cache from the database failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeL2(byte[] key, GenerationResult result) {
+        if (!l2Enabled) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            jdbcTemplate.update(UPSERT_SQL, key, GenerationResultCodec.encode(result),
+                    Timestamp.from(now.plus(ttl)), Timestamp.from(now));
+        } catch (Exception e) {
+            meterRegistry.counter("gemini.cache.l2.errors", "operation", "write").increment();
+            logger.warn("Writing the generation cache to the database failed: {}", e.getMessage());
+        }
+    }
+
+    private void count(String tier, String outcome) {
+        meterRegistry.counter("gemini.cache", "tier", tier, "outcome", outcome).increment();
+    }
+
+    private record CachedResult(GenerationResult result, Instant expiresAt) {
+    }
+
+    private record Fill(GenerationPriority priority, CompletableFuture<GenerationResult> future) {
+        Fill(GenerationPriority priority) {
+            this(priority, new CompletableFuture<>());
+        }
+    }
+}
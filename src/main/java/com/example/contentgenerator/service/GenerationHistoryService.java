@@ -0,0 +1,219 @@
+package com.example.contentgenerator.service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.model.GenerationHistory;
+import com.example.contentgenerator.publisher.PublishResult;
+import com.example.contentgenerator.util.SimHash;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records every generation and publish outcome in the {@code generation_history} table.
+ * Callers only put the event into a bounded in-memory buffer; a background thread writes the
+ * buffer out with JDBC batch inserts whenever {@code history.batch-size} events are waiting or
+ * {@code history.flush-interval} has passed. If the database falls behind and the buffer fills up,
+ * new events are dropped and counted rather than slowing down requests. On shutdown the buffer is
+ * drained before the data source closes.
+ */
+@Service
+public class GenerationHistoryService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationHistoryService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO generation_history (id, event_type, request_id, post_id, user_id, "
+            + "platform, content_type, model, content, status, error, latency_millis, simhash, input_tokens, output_tokens, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final BlockingQueue<GenerationHistory> buffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer flushTimer;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Duration shutdownTimeout;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public GenerationHistoryService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                    @Value("${history.buffer-size:10000}") int bufferSize,
+                                    @Value("${history.batch-size:200}") int batchSize,
+                                    @Value("${history.flush-interval:PT2S}") Duration flushInterval,
+                                    @Value("${history.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.flushTimer = meterRegistry.timer("history.flush");
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.shutdownTimeout = shutdownTimeout;
+        meterRegistry.gaugeCollectionSize("history.buffered", Tags.empty(), buffer);
+        this.writer = new Thread(this::writeLoop, "history-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Records a generation.
+     *
+     * @param requestId The id returned to the caller, or null.
+     * @param postId The post the content is for.
+     * @param generation The model output, or null if generation failed.
+     * @param content The parsed content that will be published.
+     * @param status Outcome, e.g. SUCCESS, PARTIAL, PARSE_FAILED or FAILED.
+     * @param error Failure message, or null.
+     */
+    public void recordGeneration(String userId, String requestId, String postId, GenerateRequest request,
+                                 GenerationResult generation, String content, String status, String error) {
+        GenerationHistory event = event(GenerationHistory.GENERATED, userId, requestId, postId);
+        event.setPlatform(request.getPlatform());
+        event.setContentType(request.getContentType());
+        event.setContent(content);
+        event.setStatus(status);
+        event.setError(error);
+        if (generation != null) {
+            event.setModel(generation.getModel());
+            event.setLatencyMillis(generation.getLatencyMillis());
+            event.setInputTokens(generation.getInputTokens());
+            event.setOutputTokens(generation.getOutputTokens());
+        }
+        enqueue(event);
+    }
+
+    /**
+     * Records the outcome of publishing a post to one platform.
+     */
+    public void recordPublish(String userId, String requestId, String postId, String content, PublishResult result) {
+        GenerationHistory event = event(GenerationHistory.PUBLISHED, userId, requestId, postId);
+        event.setPlatform(result.getPlatform());
+        event.setContent(content);
+        event.setStatus(result.getStatus().name());
+        event.setError(result.getError());
+        event.setLatencyMillis(result.getDurationMillis());
+        if (result.getStatus() == PublishResult.Status.POSTED && content != null) {
+            event.setSimhash(SimHash.fingerprint(content));
+        }
+        enqueue(event);
+    }
+
+    private static GenerationHistory event(String type, String userId, String requestId, String postId) {
+        GenerationHistory event = new GenerationHistory();
+        event.setId(UUID.randomUUID().toString());
+        event.setEventType(type);
+        event.setUserId(userId);
+        event.setRequestId(requestId);
+        event.setPostId(postId);
+        event.setCreatedAt(Instant.now());
+        return event;
+    }
+
+    private void enqueue(GenerationHistory event) {
+        if (!running || !buffer.offer(event)) {
+            meterRegistry.counter("history.dropped").increment();
+            logger.warn("History buffer full or closed; dropped {} event for post {}", event.getEventType(), event.getPostId());
+        }
+    }
+
+    private void writeLoop() {
+        List<GenerationHistory> batch = new ArrayList<>(batchSize);
+        long nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+        while (running || !buffer.isEmpty()) {
+            try {
+                long wait = Math.max(0, nextFlush - System.currentTimeMillis());
+                GenerationHistory event = buffer.poll(wait, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    batch.add(event);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Shutdown: fall through and flush what is left
+                running = false;
+            }
+            if (batch.size() >= batchSize || System.currentTimeMillis() >= nextFlush || !running) {
+                flush(batch);
+                nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<GenerationHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                ps.setString(1, event.getId());
+                ps.setString(2, event.getEventType());
+                ps.setString(3, event.getRequestId());
+                ps.setString(4, event.getPostId());
+                ps.setString(5, event.getUserId());
+                ps.setString(6, event.getPlatform());
+                ps.setString(7, event.getContentType());
+                ps.setString(8, event.getModel());
+                ps.setString(9, event.getContent());
+                ps.setString(10, event.getStatus());
+                ps.setString(11, event.getError());
+                if (event.getLatencyMillis() != null) {
+                    ps.setLong(12, event.getLatencyMillis());
+                } else {
+                    ps.setNull(12, Types.BIGINT);
+                }
+                if (event.getSimhash() != null) {
+                    ps.setLong(13, event.getSimhash());
+                } else {
+                    ps.setNull(13, Types.BIGINT);
+                }
+                if (event.getInputTokens() != null) {
+                    ps.setInt(14, event.getInputTokens());
+                } else {
+                    ps.setNull(14, Types.INTEGER);
+                }
+                if (event.getOutputTokens() != null) {
+                    ps.setInt(15, event.getOutputTokens());
+                } else {
+                    ps.setNull(15, Types.INTEGER);
+                }
+                ps.setTimestamp(16, Timestamp.from(event.getCreatedAt()));
+            });
+            meterRegistry.counter("history.written").increment(batch.size());
+        } catch (Exception e) {
+            // History is best effort; a failed batch is dropped so the writer never blocks on a broken database
+            meterRegistry.counter("history.dropped").increment(batch.size());
+            logger.error("Failed to write {} history event(s)", batch.size(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            logger.warn("History writer did not drain within {}; {} event(s) lost", shutdownTimeout, buffer.size());
+            writer.interrupt();
+        }
+    }
+}
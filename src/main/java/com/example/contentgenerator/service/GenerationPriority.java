@@ -0,0 +1,16 @@
+package com.example.contentgenerator.service;
+
+/**
+ * Scheduling lanes for Gemini calls, in order of precedence.
+ */
+public enum GenerationPriority {
+
+    /** A user is waiting on the response, e.g. a /generate call. */
+    INTERACTIVE,
+
+    /** Bulk work submitted by a user that is not awaited on screen. */
+    BATCH,
+
+    /** Work the system schedules on its own, e.g. pre-generation. */
+    BACKGROUND
+}
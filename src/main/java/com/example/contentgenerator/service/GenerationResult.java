@@ -0,0 +1,67 @@
+package com.example.contentgenerator.service;
+
+/**
+ * Result of a single Gemini generation call.
+ * Carries the cleaned response text along with the model that actually produced it
+ * and the token counts and finish reason Gemini reported, if any.
+ */
+public class GenerationResult {
+
+    private final String text;
+    private final String model;
+    private final long latencyMillis;
+    private final Integer inputTokens;
+    private final Integer outputTokens;
+    private final String finishReason;
+
+    public GenerationResult(String text, String model, long latencyMillis) {
+        this(text, model, latencyMillis, null, null, null);
+    }
+
+    public GenerationResult(String text, String model, long latencyMillis, Integer inputTokens, Integer outputTokens) {
+        this(text, model, latencyMillis, inputTokens, outputTokens, null);
+    }
+
+    public GenerationResult(String text, String model, long latencyMillis, Integer inputTokens, Integer outputTokens,
+                            String finishReason) {
+        this.text = text;
+        this.model = model;
+        this.latencyMillis = latencyMillis;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+        this.finishReason = finishReason;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * Prompt tokens as counted by Gemini, or null if the response did not report usage.
+     */
+    public Integer getInputTokens() {
+        return inputTokens;
+    }
+
+    /**
+     * Generated tokens as counted by Gemini, or null if the response did not report usage.
+     */
+    public Integer getOutputTokens() {
+        return outputTokens;
+    }
+
+    /**
+     * Why Gemini stopped generating, e.g. STOP or MAX_TOKENS, or null if not reported (as for cache hits).
+     */
+    public String getFinishReason() {
+        return finishReason;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.contentgenerator.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of a cached {@link GenerationResult}: a version byte, a flags byte, the model,
+ * the length of the text in bytes and the text itself, deflated when that makes it smaller.
+ * Latency and token counts are not stored; they describe the original call, not a cache hit.
+ */
+final class GenerationResultCodec {
+
+    private static final int VERSION = 1;
+    private static final int DEFLATED = 1;
+    // Below this, deflate's header and dictionary overhead outweigh what it saves
+    private static final int DEFLATE_THRESHOLD = 256;
+
+    private GenerationResultCodec() {
+    }
+
+    static byte[] encode(GenerationResult result) {
+        byte[] text = result.getText().getBytes(StandardCharsets.UTF_8);
+        byte[] body = text;
+        int flags = 0;
+        if (text.length >= DEFLATE_THRESHOLD) {
+            byte[] deflated = deflate(text);
+            if (deflated.length < text.length) {
+                body = deflated;
+                flags |= DEFLATED;
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeUTF(result.getModel());
+            out.writeInt(text.length);
+            out.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Encoding to memory failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The decoded result, or null if the payload was written by an unknown version.
+     * @throws IOException If the payload is corrupt.
+     */
+    static GenerationResult decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readUnsignedByte() != VERSION) {
+                return null;
+            }
+            int flags = in.readUnsignedByte();
+            String model = in.readUTF();
+            int length = in.readInt();
+            byte[] text = (flags & DEFLATED) != 0 ? inflate(in.readAllBytes(), length) : in.readNBytes(length);
+            if (text.length != length) {
+                throw new IOException("Truncated cache payload");
+            }
+            return new GenerationResult(new String(text, StandardCharsets.UTF_8), model, 0);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int length) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] text = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(text, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IOException("Truncated cache payload");
+            }
+            return text;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt cache payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
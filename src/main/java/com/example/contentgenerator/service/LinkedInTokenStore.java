@@ -0,0 +1,84 @@
+package com.example.contentgenerator.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.contentgenerator.model.LinkedInCredential;
+import com.example.contentgenerator.repository.LinkedInCredentialRepository;
+import com.example.contentgenerator.util.TokenCipher;
+
+/**
+ * Server-side store for users' LinkedIn access tokens.
+ * Tokens are encrypted at rest in the database so any node can resolve them, and recently
+ * used entries are cached in memory (still encrypted) to avoid a database round trip per request.
+ * Users without a token are looked up again on every request, so a connection made on another
+ * node is seen right away. Expired entries are swept once per TTL, so the cache only holds users
+ * seen within roughly the last two TTLs.
+ */
+@Service
+public class LinkedInTokenStore {
+
+    private final LinkedInCredentialRepository repository;
+    private final TokenCipher tokenCipher;
+    private final long cacheTtlMillis;
+    private final Map<String, CachedToken> cache = new ConcurrentHashMap<>();
+
+    public LinkedInTokenStore(LinkedInCredentialRepository repository, TokenCipher tokenCipher,
+                              @Value("${security.token-store.cache-ttl:PT5M}") Duration cacheTtl) {
+        this.repository = repository;
+        this.tokenCipher = tokenCipher;
+        this.cacheTtlMillis = cacheTtl.toMillis();
+    }
+
+    /**
+     * Stores (or replaces) the LinkedIn access token for a user.
+     */
+    public void save(String userId, String accessToken) {
+        LinkedInCredential credential = new LinkedInCredential();
+        credential.setUserId(userId);
+        credential.setEncryptedAccessToken(tokenCipher.encrypt(accessToken));
+        credential.setUpdatedAt(Instant.now());
+        repository.save(credential);
+        cache.put(userId, new CachedToken(credential.getEncryptedAccessToken(), System.currentTimeMillis() + cacheTtlMillis));
+    }
+
+    /**
+     * Returns the user's LinkedIn access token, or null if they have not connected LinkedIn.
+     */
+    public String find(String userId) {
+        if (userId == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CachedToken cached = cache.get(userId);
+        if (cached == null || cached.expiresAtMillis < now) {
+            String encrypted = repository.findById(userId).map(LinkedInCredential::getEncryptedAccessToken).orElse(null);
+            if (encrypted == null) {
+                // Misses are not cached: the user may connect LinkedIn through another node at any moment
+                cache.remove(userId);
+                return null;
+            }
+            cached = new CachedToken(encrypted, now + cacheTtlMillis);
+            cache.put(userId, cached);
+        }
+        return tokenCipher.decrypt(cached.encryptedToken);
+    }
+
+    /**
+     * Drops cached tokens that have expired, so users who stopped making requests do not stay in memory.
+     */
+    @Scheduled(fixedDelayString = "${security.token-store.cache-ttl:PT5M}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(cached -> cached.expiresAtMillis < now);
+    }
+
+    private record CachedToken(String encryptedToken, long expiresAtMillis) {
+    }
+}
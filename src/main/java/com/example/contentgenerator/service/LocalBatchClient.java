@@ -0,0 +1,88 @@
+package com.example.contentgenerator.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * In-process stand-in for the Gemini batch endpoint, for tests and local runs without an API key.
+ * A job succeeds once {@code gemini.batch.local.completion-delay} has passed since submission and
+ * answers every entry with a well-formed post derived from its prompt. Prompts containing
+ * {@value #FAIL_MARKER} get an error instead, so failure handling can be exercised too.
+ * Jobs live in memory and are lost on restart.
+ */
+public class LocalBatchClient implements GeminiBatchClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalBatchClient.class);
+
+    static final String FAIL_MARKER = "[batch-fail]";
+
+    private final Map<String, LocalJob> jobs = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final Duration completionDelay;
+
+    public LocalBatchClient(ObjectMapper objectMapper, Duration completionDelay) {
+        this.objectMapper = objectMapper;
+        this.completionDelay = completionDelay;
+    }
+
+    @Override
+    public String submit(String model, String displayName, List<Entry> entries) {
+        String name = "batches/local-" + UUID.randomUUID();
+        jobs.put(name, new LocalJob(List.copyOf(entries), Instant.now().plus(completionDelay)));
+        logger.info("Accepted local batch {} ({}) with {} requests for model {}", name, displayName, entries.size(), model);
+        return name;
+    }
+
+    @Override
+    public Status poll(String jobName) {
+        LocalJob job = jobs.get(jobName);
+        if (job == null) {
+            return new Status(State.FAILED, List.of(), "Unknown batch " + jobName);
+        }
+        if (Instant.now().isBefore(job.completesAt)) {
+            return new Status(State.RUNNING, List.of(), null);
+        }
+        List<Output> outputs = new ArrayList<>(job.entries.size());
+        for (Entry entry : job.entries) {
+            outputs.add(answer(entry));
+        }
+        return new Status(State.SUCCEEDED, outputs, null);
+    }
+
+    private Output answer(Entry entry) {
+        if (entry.prompt().contains(FAIL_MARKER)) {
+            return new Output(entry.key(), null, null, null, "Simulated failure");
+        }
+        String firstLine = entry.prompt().lines().findFirst().orElse("").trim();
+        ObjectNode post = objectMapper.createObjectNode();
+        post.put("headline", "Batch post " + entry.key());
+        post.put("content", firstLine);
+        post.put("tagline", "Generated offline");
+        post.putArray("hashtags").add("#batch");
+        post.putArray("mentions");
+        post.put("aiScore", 50);
+        post.putObject("predictedEngagement").put("likes", 0).put("comments", 0).put("shares", 0);
+        try {
+            String text = objectMapper.writeValueAsString(post);
+            return new Output(entry.key(), text, PromptBuilder.estimateTokens(entry.prompt()),
+                    PromptBuilder.estimateTokens(text), null);
+        } catch (JsonProcessingException e) {
+            return new Output(entry.key(), null, null, null, e.getMessage());
+        }
+    }
+
+    private record LocalJob(List<Entry> entries, Instant completesAt) {
+    }
+}
@@ -14,10 +14,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.publisher.PublishRequest;
+import com.example.contentgenerator.publisher.PublishResult;
+import com.example.contentgenerator.publisher.PublisherRegistry;
+import com.example.contentgenerator.scheduler.ScheduledPost;
 import com.example.contentgenerator.scheduler.SchedulingService;
-import com.example.contentgenerator.util.LinkedInUtil;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.contentgenerator.util.SpooledImage;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 
 /**
  * Service layer for handling marketing content generation logic.
@@ -29,28 +34,78 @@ public class MarketingService {
     private static final Logger logger = LoggerFactory.getLogger(MarketingService.class);
     private final GeminiAiService geminiAiService;
     private final SchedulingService schedulingService;
-    private final ObjectMapper objectMapper;
-    private final LinkedInUtil linkedInUtil;
+    private final AiResponseParser aiResponseParser;
+    private final PublisherRegistry publisherRegistry;
+    private final GenerationHistoryService generationHistoryService;
+    private final DuplicateContentIndex duplicateContentIndex;
+    private final ObservationRegistry observationRegistry;
 
-    public MarketingService(GeminiAiService geminiAiService, SchedulingService schedulingService, ObjectMapper objectMapper, LinkedInUtil linkedInUtil) {
+    public MarketingService(GeminiAiService geminiAiService, SchedulingService schedulingService, AiResponseParser aiResponseParser,
+                            PublisherRegistry publisherRegistry, GenerationHistoryService generationHistoryService,
+                            DuplicateContentIndex duplicateContentIndex, ObservationRegistry observationRegistry) {
         this.geminiAiService = geminiAiService;
         this.schedulingService = schedulingService;
-        this.objectMapper = objectMapper;
-        this.linkedInUtil = linkedInUtil;
+        this.aiResponseParser = aiResponseParser;
+        this.publisherRegistry = publisherRegistry;
+        this.generationHistoryService = generationHistoryService;
+        this.duplicateContentIndex = duplicateContentIndex;
+        this.observationRegistry = observationRegistry;
     }
 
     /**
      * Generates content based on the request.
-     * If a schedule is present, it schedules the content for later posting.
+     * If a schedule is present, it schedules the content for later posting; with deferred generation
+     * only the request is stored and the content is generated shortly before each fire time.
      * Otherwise, it generates and posts immediately.
      *
      * @param request The content generation request.
+     * @param accessToken The LinkedIn access token to publish with, if any.
+     * @param userId The authenticated user the content is generated for.
+     * @param regenerate Whether to call Gemini again instead of serving a recently generated result.
      * @return A response indicating the result of the operation.
      */
-    public Map<String, Object> generateContent(GenerateRequest request, String accessToken) {
+    public Map<String, Object> generateContent(GenerateRequest request, String accessToken, String userId, boolean regenerate) {
         // Ensure return type is Map<String, Object> to handle dynamic AI response
-        // Generate content using the AI service
-        String generatedJson = geminiAiService.generateContent(request);
+        // Generate content using the AI service, unless generation is deferred to the scheduler
+        boolean deferred = request.getSchedule() != null && request.getSchedule().isDeferred();
+        String requestId = UUID.randomUUID().toString();
+        String postId = UUID.randomUUID().toString();
+        GenerationResult generation = null;
+        AiResponseParser.ParsedContent parsed = null;
+        if (!deferred) {
+            // Near-duplicates of recent posts are regenerated up to dedup.max-regenerations times, or rejected
+            int regenerations = 0;
+            while (true) {
+                try {
+                    generation = geminiAiService.generateContent(request, GenerationPriority.INTERACTIVE, userId, regenerate);
+                } catch (RuntimeException e) {
+                    generationHistoryService.recordGeneration(userId, requestId, postId, request, null, null, "FAILED", e.getMessage());
+                    throw e;
+                }
+                // Parse AI response, salvaging truncated or wrapped output where possible
+                String text = generation.getText();
+                parsed = Observation.createNotStarted("content.parse", observationRegistry)
+                        .observe(() -> aiResponseParser.parse(text));
+                if (!duplicateContentIndex.isDuplicate(userId, parsed.getContent())) {
+                    break;
+                }
+                generationHistoryService.recordGeneration(userId, requestId, postId, request, generation, parsed.getContent(), "DUPLICATE", null);
+                // Otherwise a regeneration would be served the same content from the cache
+                geminiAiService.invalidateCached(request, userId);
+                if (duplicateContentIndex.getAction() == DuplicateContentIndex.Action.REJECT
+                        || regenerations++ >= duplicateContentIndex.getMaxRegenerations()) {
+                    logger.info("Rejected near-duplicate content for user {} after {} regeneration(s)", userId, regenerations);
+                    Map<String, Object> rejected = new HashMap<>();
+                    rejected.put("requestId", requestId);
+                    rejected.put("userId", userId);
+                    rejected.put("platform", request.getPlatform());
+                    rejected.put("platforms", request.targetPlatforms());
+                    rejected.put("status", "REJECTED_DUPLICATE");
+                    rejected.put("error", "Generated content is too similar to a recent post");
+                    return rejected;
+                }
+            }
+        }
 
         // Determine the timezone to use for response metadata
         ZoneId userZoneId = ZoneOffset.UTC;
@@ -65,24 +120,31 @@ public class MarketingService {
 
         Map<String, Object> response = new HashMap<>();
         
-        // Parse AI response
-        try {
-            Map<String, Object> aiData = objectMapper.readValue(generatedJson, new TypeReference<Map<String, Object>>() {});
-            response.putAll(aiData);
-        } catch (Exception e) {
-            // Fallback if parsing fails
-            response.put("content", generatedJson);
-            response.put("error", "Failed to parse AI JSON response");
+        String generationStatus = null;
+        if (parsed != null) {
+            response.putAll(parsed.getFields());
+            generationStatus = "SUCCESS";
+            if (parsed.isPartial()) {
+                response.put("partial", true);
+                generationStatus = "PARTIAL";
+            } else if (parsed.isFailed()) {
+                response.put("error", "Failed to parse AI JSON response");
+                generationStatus = "PARSE_FAILED";
+            }
+            response.put("aiModel", generation.getModel());
+            if (generation.getInputTokens() != null && generation.getOutputTokens() != null) {
+                response.put("tokenUsage", Map.of("input", generation.getInputTokens(), "output", generation.getOutputTokens()));
+            }
         }
 
         // Add System Metadata
-        response.put("postId", UUID.randomUUID().toString());
-        response.put("requestId", UUID.randomUUID().toString());
-        response.put("userId", "user-123"); // Placeholder for authenticated user
+        response.put("postId", postId);
+        response.put("requestId", requestId);
+        response.put("userId", userId);
         response.put("platform", request.getPlatform());
+        response.put("platforms", request.targetPlatforms());
         response.put("postType", request.getContentType());
         response.put("createdAt", ZonedDateTime.now(userZoneId).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
-        response.put("aiModel", "Gemini-1.5-flash");
         
         Map<String, Object> platformOptions = new HashMap<>();
         platformOptions.put("visibility", "PUBLIC");
@@ -94,25 +156,70 @@ public class MarketingService {
             response.put("schedule", request.getSchedule());
             response.put("postedTime", null);
             
-            // Extract content string for scheduling
-            String contentText = (String) response.getOrDefault("content", "");
-            schedulingService.schedulePost(request, contentText, accessToken);
+            // Extract content string for scheduling; null leaves generation to the scheduler
+            String contentText = deferred ? null : (String) response.getOrDefault("content", "");
+            if (deferred) {
+                response.put("generation", "DEFERRED");
+            }
+            ScheduledPost scheduledPost = schedulingService.schedulePost(request, contentText, accessToken, userId);
+            // The scheduler's id is the post id from here on, so later publish outcomes link back to this request
+            postId = scheduledPost.getId();
+            response.put("postId", postId);
+            response.put("scheduledPostId", postId);
+            if (generation != null) {
+                generationHistoryService.recordGeneration(userId, requestId, postId, request, generation, contentText, generationStatus, null);
+            }
         } else {
             response.put("status", "POSTED_IMMEDIATELY");
             response.put("postedTime", ZonedDateTime.now(userZoneId).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
             
             String contentText = (String) response.getOrDefault("content", "");
-            if ("linkedin".equalsIgnoreCase(request.getPlatform())) {
+            SpooledImage image = null;
+            if (request.isImage()) {
                 try {
-                    if ("page".equalsIgnoreCase(request.getPostTo())) {
-                        linkedInUtil.postToPage(accessToken, contentText, request.getPageId());
-                    } else {
-                        linkedInUtil.post(accessToken, contentText);
+                    image = geminiAiService.generateImage(request, GenerationPriority.INTERACTIVE, userId);
+                } catch (RuntimeException e) {
+                    generationHistoryService.recordGeneration(userId, requestId, postId, request, generation, contentText, "IMAGE_FAILED", e.getMessage());
+                    throw e;
+                }
+                response.put("image", Map.of("mimeType", image.getMimeType(), "sizeBytes", image.getSize()));
+            }
+            PublishRequest publishRequest = new PublishRequest(userId, contentText, accessToken, request.getPostTo(), request.getPageId(), image);
+            Map<String, PublishResult> results;
+            try {
+                results = publisherRegistry.publishAll(request.targetPlatforms(), publishRequest);
+            } finally {
+                if (image != null) {
+                    image.release();
+                }
+            }
+            response.put("publishResults", results);
+            generationHistoryService.recordGeneration(userId, requestId, postId, request, generation, contentText, generationStatus, null);
+            for (PublishResult result : results.values()) {
+                generationHistoryService.recordPublish(userId, requestId, postId, contentText, result);
+            }
+            if (results.values().stream().anyMatch(result -> result.getStatus() == PublishResult.Status.POSTED)) {
+                duplicateContentIndex.add(userId, contentText);
+            }
+
+            long failures = results.values().stream().filter(PublishResult::isFailure).count();
+            long unknown = results.values().stream().filter(PublishResult::isUnknown).count();
+            if (failures + unknown > 0) {
+                StringBuilder error = new StringBuilder();
+                for (PublishResult result : results.values()) {
+                    if (result.isFailure() || result.isUnknown()) {
+                        error.append(error.length() > 0 ? "; " : "").append(result.getPlatform())
+                                .append(result.isFailure() ? " post failed: " : " post outcome unknown: ").append(result.getError());
                     }
-                } catch (Exception e) {
-                    logger.error("Immediate LinkedIn post failed", e);
-                    response.put("error", "LinkedIn post failed: " + e.getMessage());
+                }
+                response.put("error", error.toString());
+                if (failures == results.size()) {
                     response.put("status", "POST_FAILED");
+                } else if (failures + unknown == results.size()) {
+                    // Nothing confirmed, but some platforms may have published; the caller must check before retrying
+                    response.put("status", "POST_UNCONFIRMED");
+                } else {
+                    response.put("status", "PARTIALLY_POSTED");
                 }
             }
         }
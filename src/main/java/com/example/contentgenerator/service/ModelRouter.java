@@ -0,0 +1,150 @@
+package com.example.contentgenerator.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the Gemini model for a request based on its content type and platform.
+ * Routes are configured as a comma-separated list of {@code contentType:platform=model} entries,
+ * where either side of the key may be {@code *}. Latency and errors are tracked per model, and
+ * traffic is diverted to the fallback model while the primary is breaching its latency SLO.
+ */
+@Component
+public class ModelRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelRouter.class);
+    private static final String WILDCARD = "*";
+
+    private final String defaultModel;
+    private final String fallbackModel;
+    private final long latencySloMillis;
+    private final double maxErrorRate;
+    private final long probeIntervalMillis;
+    private final Map<String, String> routes;
+    private final Map<String, ModelStats> stats = new ConcurrentHashMap<>();
+
+    public ModelRouter(
+            @Value("${gemini.model.name}") String defaultModel,
+            @Value("${gemini.model.fallback:${gemini.model.name}}") String fallbackModel,
+            @Value("${gemini.routing.routes:}") String routeTable,
+            @Value("${gemini.routing.latency-slo:PT8S}") Duration latencySlo,
+            @Value("${gemini.routing.max-error-rate:0.5}") double maxErrorRate,
+            @Value("${gemini.routing.probe-interval:PT1M}") Duration probeInterval) {
+        this.defaultModel = defaultModel;
+        this.fallbackModel = fallbackModel;
+        this.latencySloMillis = latencySlo.toMillis();
+        this.maxErrorRate = maxErrorRate;
+        this.probeIntervalMillis = probeInterval.toMillis();
+        this.routes = parseRoutes(routeTable);
+    }
+
+    /**
+     * Resolves the model to use for the given content type and platform.
+     * Falls back to the faster model while the primary is unhealthy, letting a single
+     * probe request through every probe interval so the primary can recover.
+     *
+     * @param contentType The requested content type (post, comment, image).
+     * @param platform The target platform.
+     * @return The model name to call.
+     */
+    public String route(String contentType, String platform) {
+        String primary = primaryFor(contentType, platform);
+        if (primary.equals(fallbackModel)) {
+            return primary;
+        }
+        ModelStats primaryStats = statsFor(primary);
+        if (primaryStats.isHealthy(latencySloMillis, maxErrorRate) || primaryStats.tryProbe(probeIntervalMillis)) {
+            return primary;
+        }
+        logger.debug("Model {} is breaching its SLO, routing to fallback {}", primary, fallbackModel);
+        return fallbackModel;
+    }
+
+    /**
+     * Returns the model to retry with after the given model failed, or null if there is none.
+     */
+    public String fallbackFor(String model) {
+        return model.equals(fallbackModel) ? null : fallbackModel;
+    }
+
+    public void recordSuccess(String model, long latencyMillis) {
+        statsFor(model).record(latencyMillis, false);
+    }
+
+    public void recordFailure(String model, long latencyMillis) {
+        statsFor(model).record(latencyMillis, true);
+    }
+
+    private String primaryFor(String contentType, String platform) {
+        String type = normalize(contentType);
+        String target = normalize(platform);
+        String model = routes.get(type + ":" + target);
+        if (model == null) {
+            model = routes.get(type + ":" + WILDCARD);
+        }
+        if (model == null) {
+            model = routes.get(WILDCARD + ":" + target);
+        }
+        return model != null ? model : defaultModel;
+    }
+
+    private ModelStats statsFor(String model) {
+        return stats.computeIfAbsent(model, k -> new ModelStats());
+    }
+
+    private static Map<String, String> parseRoutes(String routeTable) {
+        Map<String, String> parsed = new HashMap<>();
+        if (routeTable == null || routeTable.isBlank()) {
+            return parsed;
+        }
+        for (String entry : routeTable.split(",")) {
+            String[] parts = entry.split("=", 2);
+            String[] key = parts[0].split(":", 2);
+            if (parts.length != 2 || key.length != 2 || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Invalid gemini.routing.routes entry: '" + entry.trim() + "'");
+            }
+            parsed.put(normalize(key[0]) + ":" + normalize(key[1]), parts[1].trim());
+        }
+        return parsed;
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? WILDCARD : value.trim().toLowerCase();
+    }
+
+    /**
+     * Exponentially weighted latency and error rate for one model.
+     */
+    private static class ModelStats {
+        private static final double ALPHA = 0.2;
+
+        private double latencyMillis = -1;
+        private double errorRate;
+        private long lastAttemptMillis;
+
+        synchronized void record(long latency, boolean failed) {
+            latencyMillis = latencyMillis < 0 ? latency : ALPHA * latency + (1 - ALPHA) * latencyMillis;
+            errorRate = ALPHA * (failed ? 1 : 0) + (1 - ALPHA) * errorRate;
+        }
+
+        synchronized boolean isHealthy(long sloMillis, double maxErrorRate) {
+            return latencyMillis <= sloMillis && errorRate <= maxErrorRate;
+        }
+
+        synchronized boolean tryProbe(long probeIntervalMillis) {
+            long now = System.currentTimeMillis();
+            if (now - lastAttemptMillis >= probeIntervalMillis) {
+                lastAttemptMillis = now;
+                return true;
+            }
+            return false;
+        }
+    }
+}
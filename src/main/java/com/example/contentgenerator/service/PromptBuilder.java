@@ -0,0 +1,189 @@
+package com.example.contentgenerator.service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.ThinkingConfig;
+
+/**
+ * Builds Gemini prompts within a token budget and the generation config for each content type.
+ * User-supplied fields are compacted (whitespace collapsed, control characters dropped) and cut at a
+ * word boundary once they exceed their share of the budget: {@code gemini.prompt.max-field-tokens}
+ * for the short fields and {@code gemini.prompt.max-use-case-tokens} for the use case. Tokens are
+ * estimated locally at four characters per token, so budgeting costs no extra API call; exact counts
+ * come back with each response. Output length, thinking budget and temperature are set per content
+ * type from {@code gemini.output.max-tokens}, {@code gemini.output.thinking-budget} and
+ * {@code gemini.output.temperature}, all lists of {@code contentType=value} entries.
+ * <p>
+ * The configured models think before answering, and thinking tokens count against the output limit,
+ * so each limit must cover the thinking budget plus the complete JSON answer; otherwise the answer
+ * is cut off mid-object.
+ */
+@Component
+public class PromptBuilder {
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final String DEFAULT_TYPE = "post";
+
+    private final int maxFieldTokens;
+    private final int maxUseCaseTokens;
+    private final Map<String, GenerateContentConfig> configs = new HashMap<>();
+
+    public PromptBuilder(@Value("${gemini.prompt.max-field-tokens:32}") int maxFieldTokens,
+                         @Value("${gemini.prompt.max-use-case-tokens:512}") int maxUseCaseTokens,
+                         @Value("${gemini.output.max-tokens:post=2048,comment=1024,image=1024}") String maxTokens,
+                         @Value("${gemini.output.thinking-budget:post=512,comment=256,image=256}") String thinkingBudgets,
+                         @Value("${gemini.output.temperature:post=0.9,comment=0.7,image=0.8}") String temperatures) {
+        this.maxFieldTokens = maxFieldTokens;
+        this.maxUseCaseTokens = maxUseCaseTokens;
+        Map<String, String> tokenLimits = parseEntries(maxTokens, "gemini.output.max-tokens");
+        Map<String, String> budgetSettings = parseEntries(thinkingBudgets, "gemini.output.thinking-budget");
+        Map<String, String> temperatureSettings = parseEntries(temperatures, "gemini.output.temperature");
+        if (!tokenLimits.containsKey(DEFAULT_TYPE) || !budgetSettings.containsKey(DEFAULT_TYPE)
+                || !temperatureSettings.containsKey(DEFAULT_TYPE)) {
+            throw new IllegalArgumentException("gemini.output settings must include the '" + DEFAULT_TYPE + "' content type");
+        }
+        for (String type : tokenLimits.keySet()) {
+            int limit = Integer.parseInt(tokenLimits.get(type));
+            int thinkingBudget = Integer.parseInt(budgetSettings.getOrDefault(type, budgetSettings.get(DEFAULT_TYPE)));
+            if (thinkingBudget >= limit) {
+                throw new IllegalArgumentException("gemini.output.max-tokens for '" + type
+                        + "' must leave room for the answer after a thinking budget of " + thinkingBudget);
+            }
+            configs.put(type, GenerateContentConfig.builder()
+                    .maxOutputTokens(limit)
+                    .thinkingConfig(ThinkingConfig.builder().thinkingBudget(thinkingBudget).build())
+                    .temperature(Float.parseFloat(temperatureSettings.getOrDefault(type, temperatureSettings.get(DEFAULT_TYPE))))
+                    .build());
+        }
+    }
+
+    /**
+     * Returns the output limits and thinking budget for the content type; unknown types get the post settings.
+     */
+    public GenerateContentConfig configFor(String contentType) {
+        GenerateContentConfig config = contentType != null ? configs.get(contentType.toLowerCase(Locale.ROOT)) : null;
+        return config != null ? config : configs.get(DEFAULT_TYPE);
+    }
+
+    /**
+     * Builds the prompt for the AI based on the request parameters.
+     *
+     * @param request The content generation request.
+     * @return A formatted prompt string.
+     */
+    public String buildPrompt(GenerateRequest request) {
+        StringBuilder prompt = new StringBuilder();
+        if (request.isImage()) {
+            // The image itself is generated separately; the text is its caption
+            prompt.append("Generate the caption for a marketing image post");
+        } else {
+            prompt.append("Generate a marketing ").append(request.getContentType());
+        }
+        prompt.append(" for ").append(field(request.getPlatform())).append(". ");
+        prompt.append("The business is '" ).append(field(request.getBusinessName()));
+        prompt.append("' in the '" ).append(field(request.getIndustry())).append("' industry. ");
+        prompt.append("The desired tone is '" ).append(field(request.getTone())).append("'. ");
+        prompt.append("The use case is '" ).append(fit(request.getUseCase(), maxUseCaseTokens)).append("'. ");
+
+        prompt.append("\n\nIMPORTANT: Return the result strictly as a valid JSON object. ");
+        prompt.append("Do not include any markdown formatting, backticks, or explanations outside the JSON. ");
+        prompt.append("The JSON object must have the following fields:\n");
+        prompt.append("- headline (string)\n");
+        prompt.append("- content (string: the main body text)\n");
+        prompt.append("- tagline (string)\n");
+        prompt.append("- hashtags (array of strings)\n");
+        prompt.append("- mentions (array of strings)\n");
+        prompt.append("- aiScore (integer 0-100)\n");
+        prompt.append("- predictedEngagement (object with fields: likes, comments, shares)\n");
+
+        return prompt.toString();
+    }
+
+    /**
+     * Builds the prompt for the image of an image post.
+     *
+     * @param request The content generation request.
+     * @return A prompt describing the image.
+     */
+    public String buildImagePrompt(GenerateRequest request) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("A marketing image for ").append(field(request.getPlatform()));
+        prompt.append(" for the business '").append(field(request.getBusinessName()));
+        prompt.append("' in the '").append(field(request.getIndustry())).append("' industry. ");
+        prompt.append("The mood is '").append(field(request.getTone())).append("'. ");
+        prompt.append("It illustrates: ").append(fit(request.getUseCase(), maxUseCaseTokens)).append(". ");
+        prompt.append("No text, logos or watermarks in the image.");
+        return prompt.toString();
+    }
+
+    /**
+     * Rough token count of the text, at four characters per token.
+     */
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private String field(String value) {
+        return fit(value, maxFieldTokens);
+    }
+
+    /**
+     * Compacts the value and truncates it at a word boundary to at most {@code maxTokens}.
+     */
+    static String fit(String value, int maxTokens) {
+        if (value == null) {
+            return "";
+        }
+        String compact = compact(value);
+        int maxChars = maxTokens * CHARS_PER_TOKEN;
+        if (compact.length() <= maxChars) {
+            return compact;
+        }
+        int cut = compact.lastIndexOf(' ', maxChars - 1);
+        // Only back off to a word boundary if it does not throw away most of the budget
+        if (cut < maxChars / 2) {
+            cut = maxChars - 1;
+        }
+        return compact.substring(0, cut).stripTrailing() + "...";
+    }
+
+    private static String compact(String value) {
+        StringBuilder compact = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+                space = compact.length() > 0;
+                continue;
+            }
+            if (space) {
+                compact.append(' ');
+                space = false;
+            }
+            compact.append(c);
+        }
+        return compact.toString();
+    }
+
+    private static Map<String, String> parseEntries(String entries, String property) {
+        Map<String, String> parsed = new HashMap<>();
+        for (String entry : entries.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid " + property + " entry: '" + entry.trim() + "'");
+            }
+            parsed.put(parts[0].trim().toLowerCase(Locale.ROOT), parts[1].trim());
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.contentgenerator.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Line reader that never holds more than a fixed number of characters of one line.
+ * A longer line is skipped up to its end instead of being buffered, so a single oversized line
+ * cannot exhaust the heap; the caller is told it was too long and reading continues with the next line.
+ * Lines end at {@code \n}, {@code \r} or {@code \r\n}.
+ */
+public final class BoundedLineReader {
+
+    private final Reader reader;
+    private final int maxLineLength;
+    private boolean tooLong;
+    private int pushedBack = -2;
+
+    /**
+     * @param reader The input; should be buffered.
+     * @param maxLineLength Maximum number of characters kept of one line.
+     */
+    public BoundedLineReader(Reader reader, int maxLineLength) {
+        this.reader = reader;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @return The line without its terminator, an empty string if it was too long
+     *         (see {@link #isTooLong()}), or null at the end of the input.
+     */
+    public String readLine() throws IOException {
+        tooLong = false;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (c != -1 && c != '\n' && c != '\r') {
+            if (line.length() < maxLineLength) {
+                line.append((char) c);
+            } else {
+                tooLong = true;
+            }
+            c = read();
+        }
+        if (c == '\r') {
+            int next = read();
+            if (next != '\n') {
+                pushedBack = next;
+            }
+        }
+        if (tooLong) {
+            return "";
+        }
+        return line.toString();
+    }
+
+    /**
+     * True if the line last returned by {@link #readLine()} exceeded the limit and was skipped.
+     */
+    public boolean isTooLong() {
+        return tooLong;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.contentgenerator.util;
+
+import java.io.IOException;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Wraps every OkHttp call in an observation, so each outbound HTTP call gets its own span and timer.
+ * Callers name a call by tagging the request with a String ({@code Request.Builder.tag(String.class, ...)});
+ * untagged calls are named after the HTTP method.
+ */
+public class HttpObservationInterceptor implements Interceptor {
+
+    private final String name;
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * @param name The observation name shared by all calls of this client, e.g. {@code linkedin.http}.
+     */
+    public HttpObservationInterceptor(String name, ObservationRegistry observationRegistry) {
+        this.name = name;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String call = request.tag(String.class);
+        if (call == null) {
+            call = request.method().toLowerCase();
+        }
+        Observation observation = Observation.createNotStarted(name, observationRegistry)
+                .contextualName(name + " " + call)
+                .lowCardinalityKeyValue("call", call)
+                .lowCardinalityKeyValue("method", request.method())
+                .highCardinalityKeyValue("http.host", request.url().host())
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            Response response = chain.proceed(request);
+            observation.lowCardinalityKeyValue("status", String.valueOf(response.code()));
+            return response;
+        } catch (IOException | RuntimeException e) {
+            observation.lowCardinalityKeyValue("status", "IO_ERROR");
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+}
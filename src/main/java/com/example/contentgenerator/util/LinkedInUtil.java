@@ -3,6 +3,8 @@ package com.example.contentgenerator.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.observation.ObservationRegistry;
 import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +15,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.UUID;
+import java.time.Duration;
 
 /**
  * Utility for posting content to LinkedIn.
@@ -24,32 +26,44 @@ import java.util.UUID;
 public class LinkedInUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(LinkedInUtil.class);
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client;
+    // Shares the connection pool, with a write timeout long enough for an image upload
+    private final OkHttpClient uploadClient;
     private final ObjectMapper objectMapper;
 
     private final String clientId;
     private final String clientSecret;
     private final String redirectUri;
     private final String apiUrl;
+    private final String assetsUrl;
 
     public LinkedInUtil(
             @Value("${linkedin.client.id:}") String clientId,
             @Value("${linkedin.client.secret:}") String clientSecret,
             @Value("${linkedin.redirect.uri:}") String redirectUri,
             @Value("${linkedin.api.url:https://api.linkedin.com/v2/ugcPosts}") String apiUrl,
-            ObjectMapper objectMapper) {
+            @Value("${linkedin.assets.url:https://api.linkedin.com/v2/assets}") String assetsUrl,
+            @Value("${linkedin.upload.timeout:PT2M}") Duration uploadTimeout,
+            ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
         this.clientId = clientId;
         this.clientSecret = clientSecret;
         this.redirectUri = redirectUri;
         this.apiUrl = apiUrl;
+        this.assetsUrl = assetsUrl;
+        // Every call gets a linkedin.http span named after the request's String tag
+        this.client = new OkHttpClient.Builder()
+                .addInterceptor(new HttpObservationInterceptor("linkedin.http", observationRegistry))
+                .build();
+        this.uploadClient = client.newBuilder().writeTimeout(uploadTimeout).build();
         this.objectMapper = objectMapper;
     }
 
     /**
      * Generates the LinkedIn OAuth 2.0 Authorization URL.
+     *
+     * @param state The opaque state value echoed back to the callback (CSRF protection and user binding).
      */
-    public String getAuthorizationUrl() {
-        String state = UUID.randomUUID().toString(); // CSRF protection
+    public String getAuthorizationUrl(String state) {
         String scopes = "openid profile email w_member_social";
         
         try {
@@ -57,7 +71,7 @@ public class LinkedInUtil {
                     "?response_type=code" +
                     "&client_id=" + clientId +
                     "&redirect_uri=" + URLEncoder.encode(redirectUri, StandardCharsets.UTF_8.name()) +
-                    "&state=" + state +
+                    "&state=" + URLEncoder.encode(state, StandardCharsets.UTF_8.name()) +
                     "&scope=" + URLEncoder.encode(scopes, StandardCharsets.UTF_8.name());
         } catch (UnsupportedEncodingException e) {
             // This should not happen with UTF-8
@@ -79,6 +93,7 @@ public class LinkedInUtil {
 
         Request request = new Request.Builder()
                 .url("https://www.linkedin.com/oauth/v2/accessToken")
+                .tag(String.class, "access-token")
                 .post(formBody)
                 .build();
 
@@ -104,22 +119,33 @@ public class LinkedInUtil {
      * @throws IOException If the API call fails.
      */
     public void post(String accessToken, String content) throws IOException {
+        post(accessToken, content, null);
+    }
+
+    /**
+     * Posts the given content to LinkedIn, with an image if one is given.
+     *
+     * @param accessToken The OAuth2 access token.
+     * @param content The text content to be posted.
+     * @param image The image to attach, or null for a text-only post.
+     * @throws IOException If the API call fails.
+     */
+    public void post(String accessToken, String content, SpooledImage image) throws IOException {
         if (accessToken == null || accessToken.isBlank()) {
             logger.warn("No access token provided. Skipping actual LinkedIn post.");
             return;
         }
 
         String personUrn = getMemberUrn(accessToken);
-        
+        String asset = image != null ? uploadImage(accessToken, personUrn, image) : null;
+
         // Construct the JSON payload for ugcPosts
-        String jsonBody = String.format(
-            "{\"author\":\"%s\",\"lifecycleState\":\"PUBLISHED\",\"specificContent\":{\"com.linkedin.ugc.ShareContent\":{\"shareCommentary\":{\"text\":\"%s\"},\"shareMediaCategory\":\"NONE\"}},\"visibility\":{\"com.linkedin.ugc.MemberNetworkVisibility\":\"PUBLIC\"}}",
-            personUrn, content.replace("\"", "\\\"").replace("\n", "\\n")
-        );
+        String jsonBody = buildSharePayload(personUrn, content, asset);
 
         RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
         Request request = new Request.Builder()
                 .url(apiUrl)
+                .tag(String.class, "ugc-post")
                 .header("Authorization", "Bearer " + accessToken)
                 .header("X-Restli-Protocol-Version", "2.0.0")
                 .post(body)
@@ -145,6 +171,19 @@ public class LinkedInUtil {
      * @throws IOException If the API call fails.
      */
     public void postToPage(String accessToken, String content, String pageId) throws IOException {
+        postToPage(accessToken, content, pageId, null);
+    }
+
+    /**
+     * Posts the given content to a LinkedIn Page (Organization), with an image if one is given.
+     *
+     * @param accessToken The OAuth2 access token.
+     * @param content The text content to be posted.
+     * @param pageId The ID of the LinkedIn page (organization).
+     * @param image The image to attach, or null for a text-only post.
+     * @throws IOException If the API call fails.
+     */
+    public void postToPage(String accessToken, String content, String pageId, SpooledImage image) throws IOException {
         if (accessToken == null || accessToken.isBlank()) {
             logger.warn("No access token provided. Skipping actual LinkedIn post.");
             return;
@@ -155,16 +194,15 @@ public class LinkedInUtil {
         }
 
         String organizationUrn = "urn:li:organization:" + pageId;
-        
+        String asset = image != null ? uploadImage(accessToken, organizationUrn, image) : null;
+
         // Construct the JSON payload for ugcPosts
-        String jsonBody = String.format(
-            "{\"author\":\"%s\",\"lifecycleState\":\"PUBLISHED\",\"specificContent\":{\"com.linkedin.ugc.ShareContent\":{\"shareCommentary\":{\"text\":\"%s\"},\"shareMediaCategory\":\"NONE\"}},\"visibility\":{\"com.linkedin.ugc.MemberNetworkVisibility\":\"PUBLIC\"}}",
-            organizationUrn, content.replace("\"", "\\\"").replace("\n", "\\n")
-        );
+        String jsonBody = buildSharePayload(organizationUrn, content, asset);
 
         RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
         Request request = new Request.Builder()
                 .url(apiUrl)
+                .tag(String.class, "ugc-post")
                 .header("Authorization", "Bearer " + accessToken)
                 .header("X-Restli-Protocol-Version", "2.0.0")
                 .post(body)
@@ -181,12 +219,124 @@ public class LinkedInUtil {
         }
     }
 
+    /**
+     * Builds the ugcPosts JSON payload for a text share.
+     *
+     * @param authorUrn The person or organization URN posting the share.
+     * @param content The text content of the share.
+     * @return The serialized JSON payload.
+     */
+    public String buildSharePayload(String authorUrn, String content) throws IOException {
+        return buildSharePayload(authorUrn, content, null);
+    }
+
+    /**
+     * Builds the ugcPosts JSON payload for a text share, or an image share if an uploaded asset is given.
+     *
+     * @param authorUrn The person or organization URN posting the share.
+     * @param content The text content of the share.
+     * @param assetUrn The digital media asset returned by the upload, or null.
+     * @return The serialized JSON payload.
+     */
+    public String buildSharePayload(String authorUrn, String content, String assetUrn) throws IOException {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("author", authorUrn);
+        payload.put("lifecycleState", "PUBLISHED");
+        ObjectNode shareContent = payload.putObject("specificContent").putObject("com.linkedin.ugc.ShareContent");
+        shareContent.putObject("shareCommentary").put("text", content);
+        if (assetUrn != null) {
+            shareContent.put("shareMediaCategory", "IMAGE");
+            ObjectNode media = shareContent.putArray("media").addObject();
+            media.put("status", "READY");
+            media.put("media", assetUrn);
+        } else {
+            shareContent.put("shareMediaCategory", "NONE");
+        }
+        payload.putObject("visibility").put("com.linkedin.ugc.MemberNetworkVisibility", "PUBLIC");
+        return objectMapper.writeValueAsString(payload);
+    }
+
+    /**
+     * Uploads an image with the register-upload flow: registers the upload to get an asset URN and
+     * an upload URL, then PUTs the file. The body is streamed from disk in small chunks, so the image
+     * is never held on the heap.
+     *
+     * @param ownerUrn The person or organization that will own the asset.
+     * @return The asset URN to reference from the share.
+     */
+    private String uploadImage(String accessToken, String ownerUrn, SpooledImage image) throws IOException {
+        ObjectNode registerRequest = objectMapper.createObjectNode();
+        ObjectNode upload = registerRequest.putObject("registerUploadRequest");
+        upload.putArray("recipes").add("urn:li:digitalmediaRecipe:feedshare-image");
+        upload.put("owner", ownerUrn);
+        ObjectNode relationship = upload.putArray("serviceRelationships").addObject();
+        relationship.put("relationshipType", "OWNER");
+        relationship.put("identifier", "urn:li:userGeneratedContent");
+
+        Request register = new Request.Builder()
+                .url(assetsUrl + "?action=registerUpload")
+                .tag(String.class, "register-upload")
+                .header("Authorization", "Bearer " + accessToken)
+                .post(RequestBody.create(objectMapper.writeValueAsString(registerRequest), MediaType.get("application/json")))
+                .build();
+
+        String uploadUrl;
+        String asset;
+        try (Response response = client.newCall(register).execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No error body";
+                logger.error("LinkedIn register upload error: {} - {}", response.code(), errorBody);
+                throw new IOException("Failed to register LinkedIn image upload: " + errorBody);
+            }
+            JsonNode value = objectMapper.readTree(response.body().string()).path("value");
+            uploadUrl = value.path("uploadMechanism")
+                    .path("com.linkedin.digitalmedia.uploading.MediaUploadHttpRequest").path("uploadUrl").asText(null);
+            asset = value.path("asset").asText(null);
+            if (uploadUrl == null || asset == null) {
+                throw new IOException("LinkedIn register upload response has no upload URL or asset");
+            }
+        }
+
+        Request put = new Request.Builder()
+                .url(uploadUrl)
+                .tag(String.class, "upload")
+                .header("Authorization", "Bearer " + accessToken)
+                .put(RequestBody.create(image.getPath().toFile(), MediaType.get(image.getMimeType())))
+                .build();
+
+        logger.info("Uploading {} byte image to LinkedIn asset {}", image.getSize(), asset);
+        try (Response response = uploadClient.newCall(put).execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No error body";
+                logger.error("LinkedIn image upload error: {} - {}", response.code(), errorBody);
+                throw new IOException("Failed to upload image to LinkedIn: " + errorBody);
+            }
+        }
+        return asset;
+    }
+
+    /**
+     * Opens a pooled connection to the LinkedIn API so the TLS handshake is not paid by the first post.
+     * The unauthenticated request is expected to be rejected; only the connection matters.
+     */
+    public void openConnection() throws IOException {
+        Request request = new Request.Builder()
+                .url("https://api.linkedin.com/v2/userinfo")
+                .tag(String.class, "warm-up")
+                .head()
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            logger.debug("LinkedIn connection warmed up (status {})", response.code());
+        }
+    }
+
     /**
      * Fetches the member's profile URN using the OIDC userinfo endpoint.
      */
     private String getMemberUrn(String accessToken) throws IOException {
         Request request = new Request.Builder()
                 .url("https://api.linkedin.com/v2/userinfo")
+                .tag(String.class, "userinfo")
                 .header("Authorization", "Bearer " + accessToken)
                 .build();
 
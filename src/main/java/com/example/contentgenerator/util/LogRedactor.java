@@ -0,0 +1,39 @@
+package com.example.contentgenerator.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Masks credentials in log output: bearer tokens, and values of token, secret and API key fields
+ * in JSON, query strings and {@code key=value} text. Messages without any of the trigger words
+ * are returned as-is without running the patterns.
+ */
+public final class LogRedactor {
+
+    private static final String MASK = "[REDACTED]";
+    private static final String[] TRIGGERS = {"bearer", "token", "secret", "key"};
+    private static final Pattern BEARER = Pattern.compile("(?i)(bearer\\s+)[A-Za-z0-9\\-._~+/]+=*");
+    private static final Pattern SECRET_FIELD = Pattern.compile(
+            "(?i)(\"?(?:access_?token|refresh_?token|id_?token|token_?value|client_?secret|api_?key)\"?\\s*[:=]\\s*\"?)[^\"&\\s,;}\\]]+");
+
+    private LogRedactor() {
+    }
+
+    public static String redact(String text) {
+        if (text == null || !mayContainSecret(text)) {
+            return text;
+        }
+        String redacted = BEARER.matcher(text).replaceAll("$1" + MASK);
+        return SECRET_FIELD.matcher(redacted).replaceAll("$1" + MASK);
+    }
+
+    private static boolean mayContainSecret(String text) {
+        for (String trigger : TRIGGERS) {
+            for (int i = 0; i + trigger.length() <= text.length(); i++) {
+                if (text.regionMatches(true, i, trigger, 0, trigger.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.contentgenerator.util;
+
+import java.util.Locale;
+
+/**
+ * 64-bit SimHash fingerprints for near-duplicate text detection.
+ * Texts that share most of their word shingles get fingerprints that differ in only a few bits,
+ * so similarity is a Hamming distance between two longs.
+ */
+public final class SimHash {
+
+    private static final int SHINGLE_SIZE = 3;
+
+    private SimHash() {
+    }
+
+    /**
+     * Fingerprints the text from its overlapping three-word shingles, after lower-casing and
+     * dropping punctuation. Texts shorter than three words use their words as features.
+     */
+    public static long fingerprint(String text) {
+        int[] weights = new int[64];
+        long[] window = new long[SHINGLE_SIZE];
+        int words = 0;
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(normalized.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            long wordHash = 0xcbf29ce484222325L;
+            while (i < length && Character.isLetterOrDigit(normalized.charAt(i))) {
+                wordHash = (wordHash ^ normalized.charAt(i)) * 0x100000001b3L;
+                i++;
+            }
+            window[words % SHINGLE_SIZE] = wordHash;
+            words++;
+            if (words >= SHINGLE_SIZE) {
+                // Order-sensitive combination of the last three words
+                long shingle = 0;
+                for (int k = SHINGLE_SIZE; k >= 1; k--) {
+                    shingle = shingle * 31 + window[(words - k) % SHINGLE_SIZE];
+                }
+                addFeature(weights, mix(shingle));
+            }
+        }
+        for (int k = 0; k < words && words < SHINGLE_SIZE; k++) {
+            addFeature(weights, mix(window[k]));
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Number of differing bits between two fingerprints.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static void addFeature(int[] weights, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((hash >>> bit) & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * MurmurHash3 finalizer, so every input bit affects every output bit.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.contentgenerator.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A generated image spooled to a temp file, so uploads can stream it from disk instead of keeping it on the heap.
+ * The file is shared by every dispatch of a post (including queued retries) and reference counted:
+ * each holder (including every publish task still running) calls {@link #retain()} and later {@link #release()}, and the last release deletes the file.
+ */
+public final class SpooledImage {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpooledImage.class);
+
+    private final Path path;
+    private final String mimeType;
+    private final long size;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private SpooledImage(Path path, String mimeType, long size) {
+        this.path = path;
+        this.mimeType = mimeType;
+        this.size = size;
+    }
+
+    /**
+     * Writes the image bytes to a new temp file in the directory. The caller holds the first reference.
+     */
+    public static SpooledImage spool(byte[] bytes, String mimeType, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "image-", mimeType.equals("image/jpeg") ? ".jpg" : ".png");
+        try {
+            Files.write(file, bytes);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new SpooledImage(file, mimeType, bytes.length);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Adds a holder; the file stays on disk until that holder releases it as well.
+     */
+    public SpooledImage retain() {
+        references.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Drops one reference and deletes the file when it was the last.
+     */
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Could not delete spooled image {}", path, e);
+            }
+        }
+    }
+}
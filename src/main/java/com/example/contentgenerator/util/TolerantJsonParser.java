@@ -0,0 +1,163 @@
+package com.example.contentgenerator.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+/**
+ * Lenient parser for JSON objects embedded in free-form model output.
+ * Scans the text once, locates the first JSON object, ignores anything after it closes,
+ * and repairs truncation by closing an open string and any unclosed arrays and objects.
+ * If the repaired text still does not parse, it falls back to the last point where a
+ * complete value had been read and closes the structure from there.
+ */
+public final class TolerantJsonParser {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private TolerantJsonParser() {
+    }
+
+    /**
+     * Outcome of a lenient parse.
+     */
+    public static class Result {
+        private final Map<String, Object> fields;
+        private final boolean repaired;
+
+        Result(Map<String, Object> fields, boolean repaired) {
+            this.fields = fields;
+            this.repaired = repaired;
+        }
+
+        public Map<String, Object> getFields() {
+            return fields;
+        }
+
+        /**
+         * True if the object had to be closed or cut back to be parsed.
+         */
+        public boolean isRepaired() {
+            return repaired;
+        }
+    }
+
+    /**
+     * Extracts and parses the first JSON object in the given text.
+     *
+     * @param text The raw model output.
+     * @param objectMapper The mapper used for the final parse.
+     * @return The parsed object, or null if no object could be salvaged.
+     */
+    public static Result parse(String text, ObjectMapper objectMapper) {
+        if (text == null) {
+            return null;
+        }
+        int start = text.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+
+        StringBuilder stack = new StringBuilder();
+        boolean inString = false;
+        boolean stringIsValue = false;
+        boolean escaped = false;
+        char lastStructural = '{';
+        int safeEnd = -1;
+        String safeStack = null;
+
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (stringIsValue) {
+                        safeEnd = i + 1;
+                        safeStack = stack.toString();
+                    }
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    // Inside an object a string is a key unless it follows a colon
+                    stringIsValue = lastStructural == ':' || stack.charAt(stack.length() - 1) == '[';
+                }
+                case ':' -> lastStructural = c;
+                case '{', '[' -> {
+                    lastStructural = c;
+                    stack.append(c);
+                    safeEnd = i + 1;
+                    safeStack = stack.toString();
+                }
+                case '}', ']' -> {
+                    lastStructural = c;
+                    if (stack.length() > 0) {
+                        stack.setLength(stack.length() - 1);
+                    }
+                    if (stack.length() == 0) {
+                        return tryParse(text.substring(start, i + 1), objectMapper, false);
+                    }
+                    safeEnd = i + 1;
+                    safeStack = stack.toString();
+                }
+                case ',' -> {
+                    lastStructural = c;
+                    // A comma means the preceding scalar value (number, literal) is complete
+                    safeEnd = i;
+                    safeStack = stack.toString();
+                }
+                default -> {
+                }
+            }
+        }
+
+        // Truncated: close an open string, then every open container
+        StringBuilder repaired = new StringBuilder(text.substring(start));
+        if (inString) {
+            if (escaped) {
+                repaired.setLength(repaired.length() - 1);
+            }
+            repaired.append('"');
+        }
+        Result result = tryParse(close(repaired, stack), objectMapper, true);
+        if (result != null || safeEnd < 0) {
+            return result;
+        }
+
+        // Fall back to the last complete value and close from there
+        StringBuilder cut = new StringBuilder(text.substring(start, safeEnd));
+        stripTrailingSeparator(cut);
+        return tryParse(close(cut, new StringBuilder(safeStack)), objectMapper, true);
+    }
+
+    private static void stripTrailingSeparator(StringBuilder json) {
+        int end = json.length();
+        while (end > 0 && (Character.isWhitespace(json.charAt(end - 1)) || json.charAt(end - 1) == ',')) {
+            end--;
+        }
+        json.setLength(end);
+    }
+
+    private static String close(StringBuilder json, CharSequence stack) {
+        stripTrailingSeparator(json);
+        for (int j = stack.length() - 1; j >= 0; j--) {
+            json.append(stack.charAt(j) == '{' ? '}' : ']');
+        }
+        return json.toString();
+    }
+
+    private static Result tryParse(String json, ObjectMapper objectMapper, boolean repaired) {
+        try {
+            return new Result(objectMapper.readValue(json, MAP_TYPE), repaired);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.contentgenerator.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class RecurrenceRuleTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Test
+    void onceDoesNotRepeat() {
+        ZonedDateTime start = at(2024, 3, 5, 9, 0);
+        RecurrenceRule rule = RecurrenceRule.of("once", null, start);
+
+        assertThat(rule.first()).isEqualTo(start);
+        assertThat(rule.next(start)).isNull();
+    }
+
+    @Test
+    void dailyKeepsLocalTimeAcrossDaylightSavingChange() {
+        // Clocks in New York move forward on 2024-03-10
+        RecurrenceRule rule = RecurrenceRule.of("daily", null, at(2024, 3, 9, 9, 0));
+
+        ZonedDateTime next = rule.next(at(2024, 3, 9, 9, 0));
+
+        assertThat(next).isEqualTo(at(2024, 3, 10, 9, 0));
+        assertThat(next.getOffset()).isNotEqualTo(at(2024, 3, 9, 9, 0).getOffset());
+    }
+
+    @Test
+    void nextSkipsMissedOccurrencesInOneStep() {
+        RecurrenceRule rule = RecurrenceRule.of("daily", null, at(2024, 1, 1, 9, 0));
+
+        assertThat(rule.next(at(2026, 6, 15, 10, 0))).isEqualTo(at(2026, 6, 16, 9, 0));
+        assertThat(rule.next(at(2026, 6, 15, 8, 59))).isEqualTo(at(2026, 6, 15, 9, 0));
+    }
+
+    @Test
+    void nextIsEvaluatedInTheAnchorTimeZone() {
+        RecurrenceRule rule = RecurrenceRule.of("daily", null, at(2024, 1, 1, 9, 0));
+
+        ZonedDateTime next = rule.next(ZonedDateTime.of(2024, 1, 1, 15, 0, 0, 0, ZoneId.of("UTC")));
+
+        assertThat(next).isEqualTo(at(2024, 1, 2, 9, 0));
+    }
+
+    @Test
+    void monthlyReturnsToTheAnchorDayAfterAShortMonth() {
+        RecurrenceRule rule = RecurrenceRule.of("monthly", null, at(2024, 1, 31, 9, 0));
+
+        ZonedDateTime february = rule.next(at(2024, 1, 31, 9, 0));
+        ZonedDateTime march = rule.next(february);
+
+        assertThat(february).isEqualTo(at(2024, 2, 29, 9, 0));
+        assertThat(march).isEqualTo(at(2024, 3, 31, 9, 0));
+    }
+
+    @Test
+    void weekdaysSkipTheWeekend() {
+        // 2024-03-08 is a Friday
+        RecurrenceRule rule = RecurrenceRule.of("weekdays", null, at(2024, 3, 8, 9, 0));
+
+        assertThat(rule.next(at(2024, 3, 8, 9, 0))).isEqualTo(at(2024, 3, 11, 9, 0));
+    }
+
+    @Test
+    void weekdaysStartingOnAWeekendStartOnMonday() {
+        RecurrenceRule rule = RecurrenceRule.of("weekdays", null, at(2024, 3, 9, 9, 0));
+
+        assertThat(rule.first()).isEqualTo(at(2024, 3, 11, 9, 0));
+    }
+
+    @Test
+    void fiveFieldCronGetsASecondsField() {
+        // 2024-03-06 is a Wednesday
+        RecurrenceRule rule = RecurrenceRule.of("custom", "30 9 * * MON", at(2024, 3, 6, 8, 0));
+
+        assertThat(rule.first()).isEqualTo(at(2024, 3, 11, 9, 30));
+        assertThat(rule.next(rule.first())).isEqualTo(at(2024, 3, 18, 9, 30));
+    }
+
+    @Test
+    void hourlyRruleWithIntervalFiresWithinBusinessHours() {
+        // 2024-03-04 is a Monday
+        RecurrenceRule rule = RecurrenceRule.of("custom",
+                "FREQ=HOURLY;INTERVAL=3;BYHOUR=9,10,11,12,13,14,15,16,17;BYDAY=MO,TU,WE,TH,FR", at(2024, 3, 4, 9, 0));
+
+        ZonedDateTime first = rule.first();
+        ZonedDateTime second = rule.next(first);
+        ZonedDateTime third = rule.next(second);
+
+        assertThat(first).isEqualTo(at(2024, 3, 4, 9, 0));
+        assertThat(second).isEqualTo(at(2024, 3, 4, 12, 0));
+        assertThat(third).isEqualTo(at(2024, 3, 4, 15, 0));
+        assertThat(rule.next(third)).isEqualTo(at(2024, 3, 5, 9, 0));
+    }
+
+    @Test
+    void weeklyRruleDefaultsToTheStartDay() {
+        RecurrenceRule rule = RecurrenceRule.of("custom", "RRULE:FREQ=WEEKLY", at(2024, 3, 6, 10, 15));
+
+        assertThat(rule.first()).isEqualTo(at(2024, 3, 6, 10, 15));
+        assertThat(rule.next(rule.first())).isEqualTo(at(2024, 3, 13, 10, 15));
+    }
+
+    @Test
+    void rejectsUnsupportedRules() {
+        assertThat(RecurrenceRule.isValid("FREQ=YEARLY")).isFalse();
+        assertThat(RecurrenceRule.isValid("FREQ=DAILY;INTERVAL=2")).isFalse();
+        assertThat(RecurrenceRule.isValid("FREQ=DAILY;COUNT=3")).isFalse();
+        assertThat(RecurrenceRule.isValid("not a rule")).isFalse();
+        assertThat(RecurrenceRule.isValid("0 9 * * MON-FRI")).isTrue();
+        assertThatThrownBy(() -> RecurrenceRule.of("custom", " ", at(2024, 3, 6, 10, 15)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RecurrenceRule.of("hourly", null, at(2024, 3, 6, 10, 15)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, NEW_YORK);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.contentgenerator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.contentgenerator.util.SimHash;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DuplicateContentIndexTest {
+
+    private static final String POST = "Spring is here and our bakery has a brand new menu of seasonal pastries, "
+            + "fresh bread and coffee. Visit us this weekend on Main Street and try the lemon tart everyone is talking about.";
+    private static final String OTHER_POST = "Our accounting firm helps small businesses file their quarterly taxes on time, "
+            + "with a free consultation for new clients who sign up before the end of the month.";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        published();
+    }
+
+    @Test
+    void findsPublishedContent() {
+        DuplicateContentIndex index = index(true, 3, 200);
+
+        index.add("user", POST);
+
+        assertThat(index.isDuplicate("user", POST)).isTrue();
+        assertThat(index.isDuplicate("user", POST.toUpperCase())).isTrue();
+        assertThat(index.isDuplicate("user", OTHER_POST)).isFalse();
+    }
+
+    @Test
+    void keepsAccountsApart() {
+        DuplicateContentIndex index = index(true, 3, 200);
+
+        index.add("user", POST);
+
+        assertThat(index.isDuplicate("someone-else", POST)).isFalse();
+    }
+
+    @Test
+    void loadsTheWindowFromPublishHistory() {
+        published(SimHash.fingerprint(POST));
+        DuplicateContentIndex index = index(true, 3, 200);
+
+        assertThat(index.isDuplicate("user", POST)).isTrue();
+    }
+
+    @Test
+    void matchesWithinMaxDistanceAcrossBands() {
+        // With a maximum distance of 3 there are four 16-bit bands; three flipped bits leave one band intact
+        long fingerprint = SimHash.fingerprint(POST);
+        published(fingerprint ^ (1L | 1L << 16 | 1L << 32));
+        DuplicateContentIndex index = index(true, 3, 200);
+
+        assertThat(index.isDuplicate("user", POST)).isTrue();
+    }
+
+    @Test
+    void ignoresFingerprintsBeyondMaxDistance() {
+        long fingerprint = SimHash.fingerprint(POST);
+        published(fingerprint ^ (1L | 1L << 16 | 1L << 32 | 1L << 48));
+        DuplicateContentIndex index = index(true, 3, 200);
+
+        assertThat(index.isDuplicate("user", POST)).isFalse();
+    }
+
+    @Test
+    void ignoresFingerprintsThatShareABandButDifferTooMuch() {
+        // The first band matches exactly, but the remaining bits are far apart
+        long fingerprint = SimHash.fingerprint(POST);
+        published(fingerprint ^ 0xFFFF_FFFF_FFFF_0000L);
+        DuplicateContentIndex index = index(true, 3, 200);
+
+        assertThat(index.isDuplicate("user", POST)).isFalse();
+    }
+
+    @Test
+    void evictsTheOldestFingerprintWhenTheWindowIsFull() {
+        DuplicateContentIndex index = index(true, 3, 2);
+
+        index.add("user", POST);
+        index.add("user", OTHER_POST);
+        index.add("user", "A third, completely different announcement about the opening hours of our new store downtown.");
+
+        assertThat(index.isDuplicate("user", POST)).isFalse();
+        assertThat(index.isDuplicate("user", OTHER_POST)).isTrue();
+    }
+
+    @Test
+    void checksNothingWhenDisabled() {
+        DuplicateContentIndex index = index(false, 3, 200);
+
+        index.add("user", POST);
+
+        assertThat(index.isDuplicate("user", POST)).isFalse();
+    }
+
+    private DuplicateContentIndex index(boolean enabled, int maxDistance, int window) {
+        return new DuplicateContentIndex(jdbcTemplate, new SimpleMeterRegistry(), enabled, "regenerate",
+                maxDistance, 2, window, 100);
+    }
+
+    private void published(Long... fingerprints) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(List.of(fingerprints));
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.contentgenerator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.contentgenerator.dto.GenerateRequest;
+import com.example.contentgenerator.dto.ScheduleRequest;
+import com.example.contentgenerator.model.GenerationBatch;
+import com.example.contentgenerator.repository.GenerationBatchRepository;
+import com.example.contentgenerator.scheduler.ScheduledPost;
+import com.example.contentgenerator.scheduler.SchedulingService;
+import com.example.contentgenerator.util.SimHash;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+
+class GeminiBatchServiceTest {
+
+    private static final String USER = "user-1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final PromptBuilder promptBuilder = new PromptBuilder(32, 512,
+            "post=2048,comment=1024,image=1024", "post=512,comment=256,image=256", "post=0.9,comment=0.7,image=0.8");
+    private GenerationBatchRepository batchRepository;
+    private SchedulingService schedulingService;
+    private GenerationHistoryService historyService;
+    private JdbcTemplate jdbcTemplate;
+    private GeminiBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(GenerationBatchRepository.class);
+        schedulingService = mock(SchedulingService.class);
+        historyService = mock(GenerationHistoryService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ModelRouter modelRouter = mock(ModelRouter.class);
+        when(modelRouter.route(any(), any())).thenReturn("gemini-test");
+        when(batchRepository.save(any(GenerationBatch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(batchRepository.submitted(anyString(), anyString(), anyString())).thenReturn(1);
+        when(batchRepository.claim(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(1);
+        when(batchRepository.takeOver(anyString(), anyString(), anyString(), any(), any())).thenReturn(1);
+        when(batchRepository.renew(anyString(), anyString(), anyInt(), anyInt(), any())).thenReturn(1);
+        when(batchRepository.finish(anyString(), anyString(), anyString(), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(1);
+        ScheduledPost post = mock(ScheduledPost.class);
+        when(post.getId()).thenReturn("post-1");
+        when(schedulingService.schedulePost(any(), anyString(), isNull(), eq(USER))).thenReturn(post);
+
+        DuplicateContentIndex duplicateContentIndex = new DuplicateContentIndex(jdbcTemplate, new SimpleMeterRegistry(),
+                true, "regenerate", 3, 2, 200, 100);
+        service = new GeminiBatchService(new LocalBatchClient(objectMapper, Duration.ZERO), batchRepository, promptBuilder,
+                modelRouter, new AiResponseParser(objectMapper, new SimpleMeterRegistry()), schedulingService, historyService,
+                mock(Validator.class), objectMapper, new SimpleMeterRegistry(), duplicateContentIndex, 5000, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void ingestsFinishedBatchAndSchedulesScheduledRequests() {
+        GenerationBatch batch = submit(request("Acme Bakery", "fresh sourdough every morning", true),
+                request("Northwind Legal", "free consultations for small businesses", false));
+
+        service.pollBatches();
+
+        verify(schedulingService, times(1)).schedulePost(any(), anyString(), isNull(), eq(USER));
+        verify(historyService).recordGeneration(eq(USER), eq(batch.getId()), eq("post-1"), any(), any(), anyString(), eq("SUCCESS"), isNull());
+        verify(historyService).recordGeneration(eq(USER), eq(batch.getId()), isNull(), any(), any(), anyString(), eq("SUCCESS"), isNull());
+        verify(batchRepository).finish(eq(batch.getId()), anyString(), eq(GenerationBatch.COMPLETED), eq(2), eq(0), eq(2), isNull(), any());
+        assertThat(batch.getState()).isEqualTo(GenerationBatch.COMPLETED);
+    }
+
+    @Test
+    void recordsFailedEntries() {
+        GenerationBatch batch = submit(request("Acme Bakery", "fresh sourdough every morning", true),
+                request("Northwind Legal", "[batch-fail] free consultations", true));
+
+        service.pollBatches();
+
+        verify(historyService).recordGeneration(eq(USER), eq(batch.getId()), isNull(), any(), isNull(), isNull(),
+                eq("FAILED"), eq("Simulated failure"));
+        verify(batchRepository).finish(eq(batch.getId()), anyString(), eq(GenerationBatch.COMPLETED), eq(1), eq(1), eq(2), isNull(), any());
+    }
+
+    @Test
+    void doesNotScheduleNearDuplicatesWithinTheBatch() {
+        GenerationBatch batch = submit(request("Acme Bakery", "fresh sourdough every morning", true),
+                request("Acme Bakery", "fresh sourdough every morning", true));
+
+        service.pollBatches();
+
+        verify(schedulingService, times(1)).schedulePost(any(), anyString(), isNull(), eq(USER));
+        verify(historyService).recordGeneration(eq(USER), eq(batch.getId()), isNull(), any(), any(), anyString(), eq("DUPLICATE"), isNull());
+        verify(batchRepository).finish(eq(batch.getId()), anyString(), eq(GenerationBatch.COMPLETED), eq(1), eq(1), eq(2), isNull(), any());
+    }
+
+    @Test
+    void doesNotScheduleRepeatsOfPublishedPosts() {
+        GenerateRequest request = request("Acme Bakery", "fresh sourdough every morning", true);
+        // The local client answers with the first line of the prompt as the content
+        String content = promptBuilder.buildPrompt(request).lines().findFirst().orElseThrow().trim();
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(List.of(SimHash.fingerprint(content)));
+        GenerationBatch batch = submit(request);
+
+        service.pollBatches();
+
+        verify(schedulingService, never()).schedulePost(any(), anyString(), any(), anyString());
+        verify(historyService).recordGeneration(eq(USER), eq(batch.getId()), isNull(), any(), any(), eq(content), eq("DUPLICATE"), isNull());
+    }
+
+    @Test
+    void leavesUnfinishedJobsRunning() {
+        service = new GeminiBatchService(new LocalBatchClient(objectMapper, Duration.ofHours(1)), batchRepository, promptBuilder,
+                mock(ModelRouter.class), new AiResponseParser(objectMapper, new SimpleMeterRegistry()), schedulingService,
+                historyService, mock(Validator.class), objectMapper, new SimpleMeterRegistry(),
+                mock(DuplicateContentIndex.class), 5000, Duration.ofMinutes(10));
+        submit(request("Acme Bakery", "fresh sourdough every morning", true));
+
+        service.pollBatches();
+
+        verify(batchRepository, never()).claim(anyString(), anyString(), anyString(), anyString(), any());
+        verify(historyService, never()).recordGeneration(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void resumesStaleIngestAtTheSavedEntry() {
+        GenerationBatch batch = service.submit(List.of(request("Acme Bakery", "fresh sourdough every morning", true),
+                request("Northwind Legal", "free consultations for small businesses", true)), USER).get(0);
+        batch.setState(GenerationBatch.INGESTING);
+        batch.setIngested(1);
+        batch.setSucceeded(1);
+        batch.setLeaseUntil(Instant.now().minusSeconds(60));
+        when(batchRepository.findByStateAndLeaseUntilBefore(eq(GenerationBatch.INGESTING), any())).thenReturn(List.of(batch));
+
+        service.pollBatches();
+
+        verify(batchRepository).takeOver(eq(batch.getId()), eq(GenerationBatch.INGESTING), anyString(), any(), any());
+        verify(historyService, times(1)).recordGeneration(any(), any(), any(), any(), any(), any(), any(), any());
+        verify(batchRepository).renew(eq(batch.getId()), anyString(), eq(1), eq(1), any());
+        verify(batchRepository).finish(eq(batch.getId()), anyString(), eq(GenerationBatch.COMPLETED), eq(2), eq(0), eq(2), isNull(), any());
+    }
+
+    @Test
+    void stopsIngestingOnceTheClaimIsLost() {
+        GenerationBatch batch = submit(request("Acme Bakery", "fresh sourdough every morning", true));
+        when(batchRepository.renew(anyString(), anyString(), anyInt(), anyInt(), any())).thenReturn(0);
+
+        service.pollBatches();
+
+        verify(historyService, never()).recordGeneration(any(), any(), any(), any(), any(), any(), any(), any());
+        verify(batchRepository, never()).finish(eq(batch.getId()), anyString(), anyString(), anyInt(), anyInt(), anyInt(), any(), any());
+        assertThat(batch.getState()).isEqualTo(GenerationBatch.RUNNING);
+    }
+
+    @Test
+    void failsStaleSubmissions() {
+        GenerationBatch batch = new GenerationBatch();
+        batch.setId("stale");
+        batch.setUserId(USER);
+        batch.setState(GenerationBatch.SUBMITTING);
+        batch.setRequestCount(3);
+        when(batchRepository.findByStateAndLeaseUntilBefore(eq(GenerationBatch.SUBMITTING), any())).thenReturn(List.of(batch));
+
+        service.pollBatches();
+
+        verify(batchRepository).finish(eq("stale"), anyString(), eq(GenerationBatch.FAILED), eq(0), eq(3), eq(0), anyString(), any());
+    }
+
+    private GenerationBatch submit(GenerateRequest... requests) {
+        List<GenerationBatch> batches = service.submit(List.of(requests), USER);
+        assertThat(batches).hasSize(1);
+        GenerationBatch batch = batches.get(0);
+        assertThat(batch.getState()).isEqualTo(GenerationBatch.RUNNING);
+        when(batchRepository.findByState(GenerationBatch.RUNNING)).thenReturn(List.of(batch));
+        return batch;
+    }
+
+    private static GenerateRequest request(String businessName, String useCase, boolean scheduled) {
+        GenerateRequest request = new GenerateRequest();
+        request.setBusinessName(businessName);
+        request.setIndustry(businessName.contains("Legal") ? "legal services" : "food and drink");
+        request.setTone(businessName.contains("Legal") ? "professional" : "warm");
+        request.setPlatform("linkedin");
+        request.setContentType("post");
+        request.setUseCase(useCase);
+        if (scheduled) {
+            ScheduleRequest schedule = new ScheduleRequest();
+            schedule.setDateTime(ZonedDateTime.now(ZoneOffset.UTC).plusDays(1));
+            schedule.setFrequency("once");
+            request.setSchedule(schedule);
+        }
+        return request;
+    }
+}
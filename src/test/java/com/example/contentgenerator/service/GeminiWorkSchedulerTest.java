@@ -0,0 +1,200 @@
+package com.example.contentgenerator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+class GeminiWorkSchedulerTest {
+
+    private GeminiWorkScheduler scheduler;
+    private final List<String> order = new ArrayList<>();
+    private final List<CompletableFuture<?>> queued = new ArrayList<>();
+
+    @AfterEach
+    void shutDown() {
+        if (scheduler != null) {
+            scheduler.destroy();
+        }
+    }
+
+    @Test
+    void interactiveWorkRunsBeforeBatchAndBackground() throws Exception {
+        CountDownLatch release = start(Duration.ofHours(1), "");
+
+        queue(GenerationPriority.BACKGROUND, "a", "background");
+        queue(GenerationPriority.BATCH, "a", "batch");
+        queue(GenerationPriority.INTERACTIVE, "a", "interactive");
+        release.countDown();
+
+        assertThat(awaitOrder()).containsExactly("interactive", "batch", "background");
+    }
+
+    @Test
+    void tenantsShareALaneInTurns() throws Exception {
+        CountDownLatch release = start(Duration.ofHours(1), "");
+
+        queue(GenerationPriority.BATCH, "big", "big-1");
+        queue(GenerationPriority.BATCH, "big", "big-2");
+        queue(GenerationPriority.BATCH, "big", "big-3");
+        queue(GenerationPriority.BATCH, "small", "small-1");
+        release.countDown();
+
+        assertThat(awaitOrder()).containsExactly("big-1", "small-1", "big-2", "big-3");
+    }
+
+    @Test
+    void tenantWeightsSetTheShare() throws Exception {
+        CountDownLatch release = start(Duration.ofHours(1), "heavy=2");
+
+        for (int i = 1; i <= 4; i++) {
+            queue(GenerationPriority.BATCH, "heavy", "heavy-" + i);
+        }
+        queue(GenerationPriority.BATCH, "light", "light-1");
+        queue(GenerationPriority.BATCH, "light", "light-2");
+        release.countDown();
+
+        assertThat(awaitOrder()).containsExactly("heavy-1", "light-1", "heavy-2", "heavy-3", "light-2", "heavy-4");
+    }
+
+    @Test
+    void agedBackgroundWorkOvertakesBatch() throws Exception {
+        CountDownLatch release = start(Duration.ofMillis(1), "");
+
+        queue(GenerationPriority.BACKGROUND, "a", "background");
+        Thread.sleep(50);
+        queue(GenerationPriority.BATCH, "a", "batch");
+        release.countDown();
+
+        assertThat(awaitOrder()).containsExactly("background", "batch");
+    }
+
+    @Test
+    void agingNeverOutranksInteractive() throws Exception {
+        CountDownLatch release = start(Duration.ofMillis(1), "");
+
+        queue(GenerationPriority.BACKGROUND, "a", "background");
+        queue(GenerationPriority.BATCH, "a", "batch");
+        Thread.sleep(50);
+        queue(GenerationPriority.INTERACTIVE, "a", "interactive");
+        release.countDown();
+
+        assertThat(awaitOrder().get(0)).isEqualTo("interactive");
+    }
+
+    @Test
+    void reservedWorkersKeepServingInteractive() throws Exception {
+        scheduler = new GeminiWorkScheduler(2, 1, Duration.ofHours(1), "", new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CompletableFuture<Void> batch = scheduler.submit(GenerationPriority.BATCH, "a", () -> {
+            batchStarted.countDown();
+            await(release);
+            return null;
+        });
+        assertThat(batchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> secondBatch = scheduler.submit(GenerationPriority.BATCH, "a", () -> "second batch");
+
+        assertThat(scheduler.execute(GenerationPriority.INTERACTIVE, "a", () -> "interactive", Duration.ofSeconds(5))).isEqualTo("interactive");
+        assertThat(secondBatch).isNotDone();
+
+        release.countDown();
+        batch.get(5, TimeUnit.SECONDS);
+        assertThat(secondBatch.get(5, TimeUnit.SECONDS)).isEqualTo("second batch");
+    }
+
+    @Test
+    void executeRethrowsRuntimeExceptions() {
+        scheduler = new GeminiWorkScheduler(1, 0, Duration.ofHours(1), "", new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> scheduler.execute(GenerationPriority.BATCH, "a", () -> {
+            throw new IllegalArgumentException("boom");
+        }, Duration.ofSeconds(5))).isInstanceOf(IllegalArgumentException.class).hasMessage("boom");
+    }
+
+    @Test
+    void executeGivesUpAndDropsQueuedWorkAfterTheTimeout() throws Exception {
+        CountDownLatch release = start(Duration.ofHours(1), "");
+        List<String> ran = new ArrayList<>();
+
+        assertThatThrownBy(() -> scheduler.execute(GenerationPriority.BATCH, "a", () -> ran.add("late"), Duration.ofMillis(50)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("did not finish");
+        release.countDown();
+
+        assertThat(scheduler.submit(GenerationPriority.BATCH, "a", () -> "after").get(5, TimeUnit.SECONDS)).isEqualTo("after");
+        assertThat(ran).isEmpty();
+    }
+
+    @Test
+    void workRunsUnderTheSubmittersObservation() throws Exception {
+        scheduler = new GeminiWorkScheduler(1, 0, Duration.ofHours(1), "", new SimpleMeterRegistry());
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(context -> true);
+        Observation observation = Observation.start("gemini.request", registry);
+
+        CompletableFuture<Observation> seen;
+        try (Observation.Scope scope = observation.openScope()) {
+            seen = scheduler.submit(GenerationPriority.BATCH, "a", registry::getCurrentObservation);
+        } finally {
+            observation.stop();
+        }
+
+        assertThat(seen.get(5, TimeUnit.SECONDS)).isSameAs(observation);
+        assertThat(scheduler.submit(GenerationPriority.BATCH, "a", registry::getCurrentObservation).get(5, TimeUnit.SECONDS))
+                .isNull();
+    }
+
+    /**
+     * Starts a single-worker scheduler and occupies its worker until the returned latch is released,
+     * so everything queued meanwhile is ordered by the scheduler alone.
+     */
+    private CountDownLatch start(Duration agingStep, String tenantWeights) throws InterruptedException {
+        scheduler = new GeminiWorkScheduler(1, 0, agingStep, tenantWeights, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(GenerationPriority.INTERACTIVE, "blocker", () -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private void queue(GenerationPriority priority, String tenant, String name) {
+        queued.add(scheduler.submit(priority, tenant, () -> {
+            synchronized (order) {
+                order.add(name);
+            }
+            return null;
+        }));
+    }
+
+    private List<String> awaitOrder() throws Exception {
+        CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        synchronized (order) {
+            return List.copyOf(order);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.contentgenerator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.google.genai.types.GenerateContentConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GenerationCacheTest {
+
+    private GenerationCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        // L1 only, so the tests need no database
+        cache = new GenerationCache(mock(JdbcTemplate.class), new SimpleMeterRegistry(), true, false, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    void keyDependsOnTenantModelSettingsAndPrompt() {
+        GenerateContentConfig config = GenerateContentConfig.builder().maxOutputTokens(1024).temperature(0.9f).build();
+        GenerateContentConfig otherConfig = GenerateContentConfig.builder().maxOutputTokens(2048).temperature(0.9f).build();
+        byte[] key = cache.key("user-1", "model", "prompt", config);
+
+        assertThat(cache.key("user-1", "model", "prompt", config)).isEqualTo(key);
+        assertThat(cache.key("user-2", "model", "prompt", config)).isNotEqualTo(key);
+        assertThat(cache.key("user-1", "other-model", "prompt", config)).isNotEqualTo(key);
+        assertThat(cache.key("user-1", "model", "prompt", otherConfig)).isNotEqualTo(key);
+        assertThat(cache.key("user-1", "model", "other prompt", config)).isNotEqualTo(key);
+    }
+
+    @Test
+    void servesACompleteResultFromTheCache() {
+        byte[] key = cache.key("user", "model", "prompt", null);
+
+        GenerationResult first = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Hi\"}"), result -> true).join();
+        GenerationResult second = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Other\"}"), result -> true).join();
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.getText()).isEqualTo(first.getText());
+    }
+
+    @Test
+    void doesNotStoreResultsThatAreNotCacheable() {
+        byte[] key = cache.key("user", "model", "prompt", null);
+
+        GenerationResult truncated = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Cut"), result -> false).join();
+        GenerationResult retried = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Complete\"}"), result -> true).join();
+
+        assertThat(truncated.getText()).isEqualTo("{\"content\":\"Cut");
+        assertThat(retried.getText()).isEqualTo("{\"content\":\"Complete\"}");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        byte[] key = cache.key("user", "model", "prompt", null);
+        cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Hi\"}"), result -> true).join();
+
+        cache.invalidate(key);
+        cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Hi again\"}"), result -> true).join();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void concurrentLookupsShareOneFill() {
+        byte[] key = cache.key("user", "model", "prompt", null);
+        CompletableFuture<GenerationResult> pending = new CompletableFuture<>();
+
+        CompletableFuture<GenerationResult> first = cache.get(key, GenerationPriority.BATCH, loadLater(pending), result -> true);
+        CompletableFuture<GenerationResult> second = cache.get(key, GenerationPriority.BACKGROUND, load("{\"content\":\"Other\"}"), result -> true);
+        pending.complete(new GenerationResult("{\"content\":\"Hi\"}", "model", 10, 5, 5, "STOP"));
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.join().getText()).isEqualTo("{\"content\":\"Hi\"}");
+        assertThat(first.join().getText()).isEqualTo("{\"content\":\"Hi\"}");
+    }
+
+    @Test
+    void higherPriorityLookupDoesNotWaitOnALowerLaneFill() {
+        byte[] key = cache.key("user", "model", "prompt", null);
+        CompletableFuture<GenerationResult> background = new CompletableFuture<>();
+
+        CompletableFuture<GenerationResult> prewarm = cache.get(key, GenerationPriority.BACKGROUND, loadLater(background), result -> true);
+        GenerationResult interactive = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Now\"}"), result -> true).join();
+        CompletableFuture<GenerationResult> joined = cache.get(key, GenerationPriority.BATCH, load("{\"content\":\"Other\"}"), result -> true);
+
+        assertThat(loads).hasValue(2);
+        assertThat(interactive.getText()).isEqualTo("{\"content\":\"Now\"}");
+        assertThat(joined.join().getText()).isEqualTo("{\"content\":\"Now\"}");
+        assertThat(prewarm).isNotDone();
+        background.complete(new GenerationResult("{\"content\":\"Later\"}", "model", 10, 5, 5, "STOP"));
+        assertThat(prewarm.join().getText()).isEqualTo("{\"content\":\"Later\"}");
+    }
+
+    @Test
+    void refreshBypassesTheCachedResultAndReplacesIt() {
+        byte[] key = cache.key("user", "model", "prompt", null);
+        cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Hi\"}"), result -> true).join();
+
+        GenerationResult fresh = cache.refresh(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Fresh\"}"), result -> true).join();
+        GenerationResult next = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Other\"}"), result -> true).join();
+
+        assertThat(loads).hasValue(2);
+        assertThat(fresh.getText()).isEqualTo("{\"content\":\"Fresh\"}");
+        assertThat(next.getText()).isEqualTo("{\"content\":\"Fresh\"}");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsThroughToTheDatabaseTierAndKeepsTheHitInMemory() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        byte[] payload = GenerationResultCodec.encode(new GenerationResult("{\"content\":\"Stored\"}", "model", 0));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenReturn(List.of(payload));
+        cache = new GenerationCache(jdbcTemplate, new SimpleMeterRegistry(), true, true, 100, Duration.ofHours(1));
+        byte[] key = cache.key("user", "model", "prompt", null);
+
+        GenerationResult first = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Other\"}"), result -> true).join();
+        GenerationResult second = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Other\"}"), result -> true).join();
+
+        assertThat(loads).hasValue(0);
+        assertThat(first.getText()).isEqualTo("{\"content\":\"Stored\"}");
+        assertThat(second.getText()).isEqualTo("{\"content\":\"Stored\"}");
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fallsThroughToTheLoaderWhenTheDatabaseFails() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenThrow(new IllegalStateException("down"));
+        cache = new GenerationCache(jdbcTemplate, new SimpleMeterRegistry(), true, true, 100, Duration.ofHours(1));
+        byte[] key = cache.key("user", "model", "prompt", null);
+
+        GenerationResult result = cache.get(key, GenerationPriority.INTERACTIVE, load("{\"content\":\"Hi\"}"), r -> true).join();
+
+        assertThat(loads).hasValue(1);
+        assertThat(result.getText()).isEqualTo("{\"content\":\"Hi\"}");
+    }
+
+    private Supplier<CompletableFuture<GenerationResult>> loadLater(CompletableFuture<GenerationResult> result) {
+        return () -> {
+            loads.incrementAndGet();
+            return result;
+        };
+    }
+
+    private Supplier<CompletableFuture<GenerationResult>> load(String text) {
+        return () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(new GenerationResult(text, "model", 10, 5, 5, "STOP"));
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.contentgenerator.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class GenerationResultCodecTest {
+
+    @Test
+    void roundTripsShortTextUncompressed() throws IOException {
+        GenerationResult result = new GenerationResult("{\"content\":\"Hi\"}", "gemini-flash", 1234, 10, 5, "STOP");
+
+        byte[] payload = GenerationResultCodec.encode(result);
+        GenerationResult decoded = GenerationResultCodec.decode(payload);
+
+        assertThat(payload[1]).isZero();
+        assertThat(decoded.getText()).isEqualTo(result.getText());
+        assertThat(decoded.getModel()).isEqualTo("gemini-flash");
+    }
+
+    @Test
+    void roundTripsLongTextDeflated() throws IOException {
+        String text = "{\"content\":\"" + "Fresh bread every morning. ".repeat(100) + "\"}";
+
+        byte[] payload = GenerationResultCodec.encode(new GenerationResult(text, "gemini-pro", 0));
+        GenerationResult decoded = GenerationResultCodec.decode(payload);
+
+        assertThat(payload[1]).isEqualTo((byte) 1);
+        assertThat(payload.length).isLessThan(text.length() / 4);
+        assertThat(decoded.getText()).isEqualTo(text);
+    }
+
+    @Test
+    void roundTripsNonAsciiText() throws IOException {
+        String text = "{\"content\":\"Caf\u00e9 cr\u00e8me \u2615 \u00fcber alles \u4f60\u597d " + "\u00e9".repeat(300) + "\"}";
+
+        GenerationResult decoded = GenerationResultCodec.decode(GenerationResultCodec.encode(new GenerationResult(text, "m", 0)));
+
+        assertThat(decoded.getText()).isEqualTo(text);
+    }
+
+    @Test
+    void dropsCallDetails() throws IOException {
+        GenerationResult result = new GenerationResult("{}", "gemini-flash", 1234, 10, 5, "STOP");
+
+        GenerationResult decoded = GenerationResultCodec.decode(GenerationResultCodec.encode(result));
+
+        assertThat(decoded.getLatencyMillis()).isZero();
+        assertThat(decoded.getInputTokens()).isNull();
+        assertThat(decoded.getOutputTokens()).isNull();
+    }
+
+    @Test
+    void ignoresPayloadsOfOtherVersions() throws IOException {
+        byte[] payload = GenerationResultCodec.encode(new GenerationResult("{}", "m", 0));
+        payload[0] = 2;
+
+        assertThat(GenerationResultCodec.decode(payload)).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedPayloads() {
+        String text = "Fresh bread every morning. ".repeat(100);
+        byte[] deflated = GenerationResultCodec.encode(new GenerationResult(text, "m", 0));
+        byte[] plain = GenerationResultCodec.encode(new GenerationResult("short text", "m", 0));
+
+        assertThatThrownBy(() -> GenerationResultCodec.decode(Arrays.copyOf(deflated, deflated.length - 5)))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> GenerationResultCodec.decode(Arrays.copyOf(plain, plain.length - 3)))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.contentgenerator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+class HttpObservationInterceptorTest {
+
+    private final List<Observation.Context> stopped = new ArrayList<>();
+    private ObservationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+    }
+
+    @Test
+    void namesTheCallAfterTheRequestTag() throws IOException {
+        Request request = new Request.Builder().url("https://api.linkedin.com/v2/ugcPosts").tag(String.class, "ugc-post").build();
+
+        new HttpObservationInterceptor("linkedin.http", registry).intercept(chain(request, 201));
+
+        assertThat(stopped).hasSize(1);
+        Observation.Context context = stopped.get(0);
+        assertThat(context.getName()).isEqualTo("linkedin.http");
+        assertThat(context.getContextualName()).isEqualTo("linkedin.http ugc-post");
+        assertThat(context.getLowCardinalityKeyValue("call").getValue()).isEqualTo("ugc-post");
+        assertThat(context.getLowCardinalityKeyValue("status").getValue()).isEqualTo("201");
+        assertThat(context.getHighCardinalityKeyValue("http.host").getValue()).isEqualTo("api.linkedin.com");
+    }
+
+    @Test
+    void namesUntaggedCallsAfterTheMethod() throws IOException {
+        Request request = new Request.Builder().url("https://api.linkedin.com/v2/userinfo").build();
+
+        new HttpObservationInterceptor("linkedin.http", registry).intercept(chain(request, 200));
+
+        assertThat(stopped.get(0).getLowCardinalityKeyValue("call").getValue()).isEqualTo("get");
+    }
+
+    @Test
+    void recordsIoErrors() throws IOException {
+        Request request = new Request.Builder().url("https://api.linkedin.com/v2/userinfo").tag(String.class, "userinfo").build();
+        Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request)).thenThrow(new IOException("connection reset"));
+
+        assertThatThrownBy(() -> new HttpObservationInterceptor("linkedin.http", registry).intercept(chain))
+                .isInstanceOf(IOException.class);
+
+        Observation.Context context = stopped.get(0);
+        assertThat(context.getLowCardinalityKeyValue("status").getValue()).isEqualTo("IO_ERROR");
+        assertThat(context.getError()).hasMessage("connection reset");
+    }
+
+    private static Interceptor.Chain chain(Request request, int code) throws IOException {
+        Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request)).thenReturn(new Response.Builder()
+                .request(request).protocol(Protocol.HTTP_1_1).code(code).message("").build());
+        return chain;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.contentgenerator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SimHashTest {
+
+    private static final String POST = "Spring is here and our bakery has a brand new menu of seasonal pastries, "
+            + "fresh bread and coffee. Visit us this weekend on Main Street and try the lemon tart everyone is talking about.";
+
+    @Test
+    void identicalTextHasIdenticalFingerprint() {
+        assertThat(SimHash.fingerprint(POST)).isEqualTo(SimHash.fingerprint(POST));
+    }
+
+    @Test
+    void ignoresCasePunctuationAndSpacing() {
+        String reformatted = POST.toUpperCase().replace(",", " ;").replace(" ", "   ");
+
+        assertThat(SimHash.distance(SimHash.fingerprint(POST), SimHash.fingerprint(reformatted))).isZero();
+    }
+
+    @Test
+    void smallEditIsCloserThanUnrelatedText() {
+        String edited = POST.replace("this weekend", "this Saturday");
+        String unrelated = "Our accounting firm helps small businesses file their quarterly taxes on time, "
+                + "with a free consultation for new clients who sign up before the end of the month.";
+
+        int editDistance = SimHash.distance(SimHash.fingerprint(POST), SimHash.fingerprint(edited));
+        int unrelatedDistance = SimHash.distance(SimHash.fingerprint(POST), SimHash.fingerprint(unrelated));
+
+        assertThat(editDistance).isLessThan(unrelatedDistance);
+        assertThat(unrelatedDistance).isGreaterThan(10);
+    }
+
+    @Test
+    void distanceCountsDifferingBits() {
+        assertThat(SimHash.distance(0L, 0L)).isZero();
+        assertThat(SimHash.distance(0L, 0b1011L)).isEqualTo(3);
+        assertThat(SimHash.distance(0L, -1L)).isEqualTo(64);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.contentgenerator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TolerantJsonParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void parsesObjectWrappedInProse() {
+        TolerantJsonParser.Result result = TolerantJsonParser.parse(
+                "Sure! Here is your post: {\"headline\":\"Hi\",\"content\":\"Body\"} Let me know if you need more.", objectMapper);
+
+        assertThat(result).isNotNull();
+        assertThat(result.isRepaired()).isFalse();
+        assertThat(result.getFields()).containsEntry("headline", "Hi").containsEntry("content", "Body");
+    }
+
+    @Test
+    void ignoresEverythingAfterTheFirstObject() {
+        TolerantJsonParser.Result result = TolerantJsonParser.parse("{\"content\":\"first\"} {\"content\":\"second\"}", objectMapper);
+
+        assertThat(result.getFields()).containsOnlyKeys("content").containsEntry("content", "first");
+    }
+
+    @Test
+    void closesTruncatedStringAndObject() {
+        TolerantJsonParser.Result result = TolerantJsonParser.parse("{\"headline\":\"Hi\",\"content\":\"Body that was cut", objectMapper);
+
+        assertThat(result).isNotNull();
+        assertThat(result.isRepaired()).isTrue();
+        assertThat(result.getFields()).containsEntry("headline", "Hi").containsEntry("content", "Body that was cut");
+    }
+
+    @Test
+    void closesTruncatedArray() {
+        TolerantJsonParser.Result result = TolerantJsonParser.parse(
+                "{\"content\":\"Body\",\"hashtags\":[\"#one\",\"#two\",", objectMapper);
+
+        assertThat(result.isRepaired()).isTrue();
+        assertThat(result.getFields()).containsEntry("content", "Body");
+        assertThat(result.getFields().get("hashtags")).isEqualTo(List.of("#one", "#two"));
+    }
+
+    @Test
+    void dropsFieldCutOffBeforeItsValue() {
+        TolerantJsonParser.Result result = TolerantJsonParser.parse("{\"content\":\"Body\",\"tagline\":", objectMapper);
+
+        assertThat(result.isRepaired()).isTrue();
+        assertThat(result.getFields()).containsOnlyKeys("content");
+    }
+
+    @Test
+    void keepsBracesAndEscapesInsideStrings() {
+        TolerantJsonParser.Result result = TolerantJsonParser.parse(
+                "{\"content\":\"Use {braces} and \\\"quotes\\\"\",\"aiScore\":80}", objectMapper);
+
+        assertThat(result.isRepaired()).isFalse();
+        assertThat(result.getFields()).containsEntry("content", "Use {braces} and \"quotes\"").containsEntry("aiScore", 80);
+    }
+
+    @Test
+    void returnsNullWithoutAnObject() {
+        assertThat(TolerantJsonParser.parse("I cannot help with that.", objectMapper)).isNull();
+        assertThat(TolerantJsonParser.parse(null, objectMapper)).isNull();
+    }
+}